@@ -0,0 +1,14 @@
+package me.scana.okgradle
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.startup.StartupActivity
+
+/**
+ * Starts indexing the artifacts of a project once it is open, so they are known by the time the dialog is.
+ */
+class IndexProjectArtifactsActivity : StartupActivity {
+
+    override fun runActivity(project: Project) {
+        ProjectArtifactIndexer.getInstance(project).indexInBackground()
+    }
+}
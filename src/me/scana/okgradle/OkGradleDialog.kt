@@ -128,6 +128,9 @@ class OkGradleDialog(private val presenter: OkGradle.Presenter) : DialogWrapper(
 
     override fun userTextInputObservable(): Observable<String> = libraryQuery.observeText()
 
+    override fun userSearchConfirmationObservable(): Observable<String> =
+            libraryQuery.observeKeyPress(KeyEvent.VK_ENTER).map { libraryQuery.text }
+
     override fun userArtifactSelectionObservable(): Observable<Selection<Artifact>> =
             resultList.observeSelection()
                     .doOnNext { registerResultListKeyListener() }
@@ -164,7 +167,7 @@ class OkGradleDialog(private val presenter: OkGradle.Presenter) : DialogWrapper(
     }
 
     override fun showArtifacts(artifacts: List<Artifact>) {
-        resultsListModel.addAll(artifacts)
+        resultsListModel.replaceAll(artifacts)
     }
 
     override fun showSuggestion(suggestion: String) {
@@ -2,6 +2,7 @@ package me.scana.okgradle
 
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.project.Project
+import io.reactivex.Observable
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.disposables.Disposable
 import me.scana.okgradle.data.AddDependencyUseCase
@@ -10,6 +11,7 @@ import me.scana.okgradle.data.repository.Artifact
 import me.scana.okgradle.data.repository.SearchResult
 import me.scana.okgradle.util.IntellijTools
 import me.scana.okgradle.util.Selection
+import me.scana.okgradle.util.edtScheduler
 import java.util.concurrent.TimeUnit
 
 class OkGradleDialogPresenter(
@@ -19,7 +21,8 @@ class OkGradleDialogPresenter(
         private val intellijTools: IntellijTools
 ) : OkGradle.Presenter {
 
-    private val SEARCH_START_DELAY_IN_MILLIS = 500L
+    private val SEARCH_START_DELAY_IN_MILLIS = 150L
+    private val REMOTE_SEARCH_START_DELAY_IN_MILLIS = 500L
 
     private var selectedArtifact: Artifact? = null
     private var view: OkGradle.View? = null
@@ -36,15 +39,37 @@ class OkGradleDialogPresenter(
         observeArtifactSelection(view)
     }
 
+    /**
+     * Typing starts a search after a short pause, but repositories that have to go over the network
+     * are only asked once the user stopped for [REMOTE_SEARCH_START_DELAY_IN_MILLIS].
+     * Pressing Enter searches everywhere right away. An empty search is made as soon as the dialog
+     * opens, which lists artifacts the project already uses.
+     */
     private fun observeInput(view: OkGradle.View) {
-        view.userTextInputObservable()
-                .debounce(SEARCH_START_DELAY_IN_MILLIS, TimeUnit.MILLISECONDS)
+        Observable.merge(
+                view.userTextInputObservable().map { SearchRequest(it, confirmed = false) },
+                view.userSearchConfirmationObservable().map { SearchRequest(it, confirmed = true) }
+        )
+                .startWith(SearchRequest("", confirmed = true))
+                .debounce { request ->
+                    when {
+                        request.confirmed -> Observable.empty<Long>()
+                        else -> Observable.timer(SEARCH_START_DELAY_IN_MILLIS, TimeUnit.MILLISECONDS)
+                    }
+                }
+                .distinctUntilChanged()
+                .observeOn(edtScheduler)
                 .doOnNext { this.view?.resetListState() }
-                .switchMap { interactor.search(it) }
+                .switchMap { interactor.search(it.query, remoteDelayInMillis(it)).observeOn(edtScheduler) }
                 .subscribe(this::onSearchResult, this::onCriticalError)
                 .attachToLifecycle()
     }
 
+    private fun remoteDelayInMillis(request: SearchRequest) = when {
+        request.confirmed -> 0L
+        else -> REMOTE_SEARCH_START_DELAY_IN_MILLIS - SEARCH_START_DELAY_IN_MILLIS
+    }
+
     private fun observeArtifactSelection(view: OkGradle.View) {
         view.userArtifactSelectionObservable()
                 .startWith(Selection.None())
@@ -123,4 +148,6 @@ class OkGradleDialogPresenter(
         view?.resetListState()
         view?.fillSearchPhrase(suggestion)
     }
+
+    private data class SearchRequest(val query: String, val confirmed: Boolean)
 }
@@ -11,6 +11,7 @@ interface OkGradle {
         fun showArtifacts(artifacts: List<Artifact>)
         fun showSuggestion(suggestion: String)
         fun userTextInputObservable(): Observable<String>
+        fun userSearchConfirmationObservable(): Observable<String>
         fun userArtifactSelectionObservable(): Observable<Selection<Artifact>>
         fun displayModules(modules: List<Module>)
         fun setUpButtons(allEnabled: Boolean, isAddDependencyVisible: Boolean)
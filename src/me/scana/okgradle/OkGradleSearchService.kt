@@ -0,0 +1,181 @@
+package me.scana.okgradle
+
+import com.google.gson.Gson
+import com.intellij.ide.PowerSaveMode
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.components.ServiceManager
+import io.reactivex.disposables.CompositeDisposable
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.LatestVersions
+import me.scana.okgradle.data.SearchArtifactsUseCase
+import me.scana.okgradle.data.UsageStatistics
+import me.scana.okgradle.data.VersionRefresher
+import me.scana.okgradle.data.index.GoogleMavenIndex
+import me.scana.okgradle.data.index.MavenCentralIndex
+import me.scana.okgradle.data.repository.*
+import okhttp3.Cache
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import java.io.File
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Application-wide owner of the HTTP client and repositories, so that connections,
+ * caches and thread pools survive between dialog openings and are shared by all projects.
+ */
+class OkGradleSearchService : Disposable {
+
+    companion object {
+        private const val HTTP_CACHE_DIRECTORY = "ok-gradle/http-cache"
+        private const val GOOGLE_INDEX_FILE = "ok-gradle/google-maven-index.bin"
+        private const val MAVEN_CENTRAL_INDEX_FILE = "ok-gradle/maven-central-index.bin"
+        private const val USAGE_STATISTICS_FILE = "ok-gradle/usage-statistics.log"
+        private const val HTTP_CACHE_SIZE_IN_BYTES = 20L * 1024 * 1024
+        private const val FALLBACK_MAX_AGE_IN_SECONDS = 60 * 60
+        private const val MAX_STALE_IN_SECONDS = 24 * 60 * 60
+        private const val MAX_IDLE_CONNECTIONS = 8
+        private const val KEEP_ALIVE_IN_MINUTES = 5L
+        private const val MAX_REQUESTS = 16
+        private const val MAX_REQUESTS_PER_HOST = 4
+        private const val SEARCH_THREADS = 4
+        private const val PROJECT_REPOSITORIES = 1
+        private const val JITPACK_GROUP_PREFIX = "com.github."
+
+        private val MAVEN_CENTRAL_URL = "https://repo1.maven.org/maven2/".toHttpUrl()
+        private val JCENTER_URL = "https://jcenter.bintray.com/".toHttpUrl()
+        private val JITPACK_MAVEN_URL = "https://jitpack.io/".toHttpUrl()
+
+        private val WARM_UP_ENABLED = System.getProperty("okgradle.warmup", "true")!!.toBoolean()
+        private val MAVEN_CENTRAL_INDEX_SOURCE: String? = System.getProperty("okgradle.mavenCentralIndex")
+        private val warmUpStarted = AtomicBoolean()
+
+        fun getInstance(): OkGradleSearchService = ServiceManager.getService(OkGradleSearchService::class.java)
+
+        /**
+         * Creates the service and warms up its repositories on a pooled thread, once per IDE session.
+         * Can be turned off with the `okgradle.warmup=false` system property.
+         */
+        fun warmUpInBackground() {
+            if (WARM_UP_ENABLED && warmUpStarted.compareAndSet(false, true)) {
+                ApplicationManager.getApplication().executeOnPooledThread {
+                    getInstance().warmUp()
+                }
+            }
+        }
+    }
+
+    @Volatile
+    private var disposed = false
+
+    private val httpCache = Cache(File(PathManager.getSystemPath(), HTTP_CACHE_DIRECTORY), HTTP_CACHE_SIZE_IN_BYTES)
+
+    val okHttpClient: OkHttpClient = OkHttpClient.Builder()
+            .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_IN_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(Dispatcher().apply {
+                maxRequests = MAX_REQUESTS
+                maxRequestsPerHost = MAX_REQUESTS_PER_HOST
+            })
+            .callTimeout(SearchArtifactsUseCase.DEFAULT_DEADLINE_IN_MILLIS, TimeUnit.MILLISECONDS)
+            .cache(httpCache)
+            .addNetworkInterceptor(FallbackCacheControlInterceptor(FALLBACK_MAX_AGE_IN_SECONDS))
+            .build()
+
+    val gson = Gson()
+
+    val networkClient = NetworkClient(okHttpClient, HedgePolicy(), MAX_STALE_IN_SECONDS)
+
+    /**
+     * Local Maven Central index, set up only when the `okgradle.mavenCentralIndex` system property
+     * points at a Maven Indexer directory or a coordinate dump. Downloading it may take much longer
+     * than a search is allowed to, so it gets a client without the call timeout.
+     */
+    private val mavenCentralIndex = MAVEN_CENTRAL_INDEX_SOURCE?.let {
+        MavenCentralIndex(
+                NetworkClient(okHttpClient.newBuilder().callTimeout(0, TimeUnit.MILLISECONDS).build()),
+                it,
+                File(PathManager.getSystemPath(), MAVEN_CENTRAL_INDEX_FILE)
+        )
+    }
+
+    val usageStatistics = UsageStatistics(File(PathManager.getSystemPath(), USAGE_STATISTICS_FILE))
+
+    private val googleRepository = GoogleRepository(
+            networkClient,
+            GoogleMavenIndex(networkClient, File(PathManager.getSystemPath(), GOOGLE_INDEX_FILE))
+    )
+
+    val repositories = mapOf(
+            "Recently used" to UsageRepository(usageStatistics),
+            "Google" to googleRepository,
+            "Maven" to MavenRepository(networkClient, gson, index = mavenCentralIndex),
+            "JitPack" to JitPackRepository(networkClient, gson),
+            "Bintray" to BintrayRepository(networkClient, gson)
+    )
+
+    private val latestVersions = LatestVersions()
+
+    private val searchExecutor = SearchArtifactsUseCase.newThreadPool(SEARCH_THREADS, "ok-gradle-search")
+
+    // A thread for each repository, including the project's one added when the dialog opens, so that no search waits for another.
+    private val repositoryExecutor = SearchArtifactsUseCase.newThreadPool(repositories.size + PROJECT_REPOSITORIES, "ok-gradle-repository")
+
+    val searchUseCase = SearchArtifactsUseCase(
+            repositories,
+            usageStatistics = usageStatistics,
+            latestVersions = latestVersions,
+            scheduler = Schedulers.from(searchExecutor),
+            ioScheduler = Schedulers.from(repositoryExecutor)
+    )
+
+    /**
+     * Keeps versions of recently used and recently found artifacts up to date in the background,
+     * except in power save mode, which users turn on when running on battery or a metered connection.
+     */
+    private val versionRefresher = VersionRefresher(
+            networkClient,
+            listOf(
+                    VersionRefresher.Source(GoogleRepository.GOOGLE_MAVEN_URL) { googleRepository.hostsGroup(it) },
+                    VersionRefresher.Source(JITPACK_MAVEN_URL) { it.startsWith(JITPACK_GROUP_PREFIX) },
+                    VersionRefresher.Source(MAVEN_CENTRAL_URL) { !googleRepository.hostsGroup(it) },
+                    VersionRefresher.Source(JCENTER_URL) { !googleRepository.hostsGroup(it) }
+            ),
+            { limit ->
+                (usageStatistics.mostUsed(limit) + searchUseCase.cache.recentArtifacts(limit))
+                        .distinctBy { "${it.groupId}:${it.name}" }
+                        .take(limit)
+            },
+            latestVersions,
+            isPaused = { disposed || PowerSaveMode.isEnabled() }
+    )
+
+    private val backgroundJobs = CompositeDisposable()
+
+    private fun warmUp() {
+        for (repository in repositories.values) {
+            if (disposed || Thread.currentThread().isInterrupted) {
+                return
+            }
+            repository.warmUp()
+            searchUseCase.suggester.addAll(repository.knownArtifacts())
+        }
+        backgroundJobs.add(versionRefresher.start())
+    }
+
+    override fun dispose() {
+        disposed = true
+        backgroundJobs.dispose()
+        searchExecutor.shutdownNow()
+        repositoryExecutor.shutdownNow()
+        okHttpClient.dispatcher.cancelAll()
+        okHttpClient.dispatcher.executorService.shutdown()
+        okHttpClient.connectionPool.evictAll()
+        httpCache.close()
+    }
+}
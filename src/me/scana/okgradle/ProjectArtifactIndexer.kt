@@ -0,0 +1,154 @@
+package me.scana.okgradle
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.components.ServiceManager
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.openapi.vfs.newvfs.BulkFileListener
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent
+import com.intellij.util.PathUtil
+import me.scana.okgradle.data.ArtifactCatalog
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.internal.dsl.api.GradleBuildModel
+import me.scana.okgradle.internal.dsl.api.ProjectBuildModel
+import me.scana.okgradle.internal.dsl.api.ext.GradlePropertyModel.STRING_TYPE
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Keeps [catalog] filled with the artifacts the project's build files depend on.
+ * The first indexing parses all modules in parallel, off the UI thread. Afterwards, a changed build file of a module
+ * without submodules is parsed again on its own, while changes to the root or any other parent module build file,
+ * or to any other Gradle file, which may define versions or modules used everywhere, make the whole project indexed again.
+ * Only files in the project's content roots count, as file events come from every open project.
+ */
+class ProjectArtifactIndexer(private val project: Project) : Disposable {
+
+    companion object {
+        private val LOG = Logger.getInstance(ProjectArtifactIndexer::class.java)
+
+        fun getInstance(project: Project): ProjectArtifactIndexer = ServiceManager.getService(project, ProjectArtifactIndexer::class.java)
+
+        private fun isGradleFile(path: String) = path.endsWith(".gradle") || path.endsWith(".gradle.kts") || path.endsWith("/gradle.properties")
+    }
+
+    val catalog = ArtifactCatalog()
+
+    private val indexing = AtomicBoolean()
+    private val changedFiles = ConcurrentHashMap.newKeySet<String>()
+
+    @Volatile
+    private var started = false
+
+    @Volatile
+    private var indexed = false
+
+    @Volatile
+    private var disposed = false
+
+    init {
+        project.messageBus.connect(this).subscribe(VirtualFileManager.VFS_CHANGES, object : BulkFileListener {
+            override fun after(events: List<VFileEvent>) {
+                val roots = projectRoots()
+                val changed = events.map { it.path }.filter { path -> isGradleFile(path) && roots.any { FileUtil.isAncestor(it, path, false) } }
+                if (changed.isNotEmpty() && started) {
+                    changedFiles.addAll(changed)
+                    indexInBackground()
+                }
+            }
+        })
+    }
+
+    /**
+     * Starts indexing on a pooled thread, unless it is already running or nothing changed since the last time.
+     */
+    fun indexInBackground() {
+        started = true
+        if (indexed && changedFiles.isEmpty()) {
+            return
+        }
+        if (indexing.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread {
+                try {
+                    index()
+                } catch (e: Exception) {
+                    LOG.warn("Could not index artifacts of ${project.name}", e)
+                } finally {
+                    indexing.set(false)
+                }
+                if (!disposed && changedFiles.isNotEmpty()) {
+                    indexInBackground()
+                }
+            }
+        }
+    }
+
+    private fun index() {
+        if (!indexed) {
+            changedFiles.clear()
+            indexAll()
+            indexed = true
+            return
+        }
+        val changed = changedFiles.toList()
+        changedFiles.removeAll(changed)
+        if (changed.any { !catalog.contains(it) || catalog.hasFilesNestedIn(PathUtil.getParentPath(it)) }) {
+            indexAll()
+            return
+        }
+        for (path in changed) {
+            if (disposed) {
+                return
+            }
+            val file = LocalFileSystem.getInstance().findFileByPath(path)
+            if (file == null || !file.isValid) {
+                catalog.remove(path)
+                continue
+            }
+            catalog.update(path, readArtifacts { ProjectBuildModel.getForReading(project).getModuleBuildModel(file) })
+        }
+    }
+
+    private fun projectRoots(): List<String> {
+        return ProjectRootManager.getInstance(project).contentRoots.map { it.path } + listOfNotNull(project.basePath)
+    }
+
+    private fun indexAll() {
+        val models = ProjectBuildModel.getForReading(project).parseAllIncludedBuildModels()
+        val artifactsByFile = models.associate { model -> model.virtualFile.path to readArtifacts { model } }
+        catalog.replaceAll(artifactsByFile)
+    }
+
+    /**
+     * Reads artifacts of one build model in a read action that gives way to write actions, and starts over once they are done,
+     * so that indexing a large project never holds up typing. Elements the model added while being read are dropped afterwards,
+     * otherwise the file would count as changed and be parsed again next time.
+     */
+    private fun readArtifacts(model: () -> GradleBuildModel): List<Artifact> {
+        var artifacts = emptyList<Artifact>()
+        while (!ProgressIndicatorUtils.runInReadActionWithWriteActionPriority { artifacts = model().readArtifacts() }) {
+            ProgressIndicatorUtils.yieldToPendingWriteActions()
+        }
+        return artifacts
+    }
+
+    private fun GradleBuildModel.readArtifacts(): List<Artifact> {
+        val artifacts = dependencies().artifacts().mapNotNull {
+            val groupId = it.group().getValue(STRING_TYPE) ?: return@mapNotNull null
+            val version = it.version().getValue(STRING_TYPE) ?: return@mapNotNull null
+            Artifact(groupId, it.name().forceString(), version)
+        }
+        resetState()
+        return artifacts
+    }
+
+    override fun dispose() {
+        disposed = true
+    }
+}
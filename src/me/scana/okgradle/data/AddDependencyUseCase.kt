@@ -20,11 +20,11 @@ import me.scana.okgradle.util.Notifier
 private const val KAPT_PLUGIN = "kotlin-kapt"
 
 object AddDependencyUseCaseFactory {
-    fun create(project: Project?, notifier: Notifier): AddDependencyUseCase {
+    fun create(project: Project?, notifier: Notifier, usageStatistics: UsageStatistics): AddDependencyUseCase {
         return if (project != null) {
-            AddDependencyUseCaseImpl(project, notifier)
+            AddDependencyUseCaseImpl(project, notifier, usageStatistics)
         } else {
-            val copyImpl = AddDependencyUseCaseImpl(DummyProject.getInstance(), notifier)
+            val copyImpl = AddDependencyUseCaseImpl(DummyProject.getInstance(), notifier, usageStatistics)
             CopyOnlyDependencyUseCase(copyImpl)
         }
     }
@@ -37,7 +37,8 @@ interface AddDependencyUseCase {
 
 class AddDependencyUseCaseImpl(
         private val project: Project,
-        private val notifier: Notifier
+        private val notifier: Notifier,
+        private val usageStatistics: UsageStatistics
 ) : AddDependencyUseCase {
 
     override fun addDependency(module: Module, artifact: Artifact) {
@@ -59,6 +60,7 @@ class AddDependencyUseCaseImpl(
                 }
                 notifier.showDependenciesAddedMessage(module.name, addedDependencies)
             }
+            usageStatistics.record(artifact)
         }
     }
 
@@ -67,6 +69,7 @@ class AddDependencyUseCaseImpl(
         val dependencyStrategy = AddDependencyStrategyFactory.create(dependencySpec, withKotlinKaptSupport = false)
         CopyPasteManager.getInstance().setContents(TextTransferable(dependencyStrategy.getDependencyStatements(dependencySpec).joinToString("\n") as String?))
         notifier.showDependenciesStatementCopiedMessage()
+        usageStatistics.record(artifact)
     }
 
     private fun findGradleFile(module: Module): VirtualFile? {
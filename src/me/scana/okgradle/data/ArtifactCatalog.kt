@@ -0,0 +1,80 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.index.ArtifactQuery
+import me.scana.okgradle.data.index.VersionComparator
+import me.scana.okgradle.data.repository.Artifact
+
+/**
+ * Artifacts declared in build files, kept per file so that a changed file replaces only its own entries.
+ * When several files use the same `groupId:name`, the highest version among them is the one returned.
+ */
+class ArtifactCatalog {
+
+    private val artifactsByFile = HashMap<String, List<Artifact>>()
+    private var merged: List<Artifact>? = null
+
+    @Synchronized
+    fun contains(path: String) = path in artifactsByFile
+
+    /**
+     * Whether build files in subdirectories of [directory] are known, which makes a build file in [directory] their parent's.
+     */
+    @Synchronized
+    fun hasFilesNestedIn(directory: String): Boolean {
+        val prefix = directory.trimEnd('/') + "/"
+        return artifactsByFile.keys.any { it.startsWith(prefix) && it.indexOf('/', prefix.length) >= 0 }
+    }
+
+    /**
+     * Replaces everything known with [artifactsByFile], keyed by build file path.
+     */
+    @Synchronized
+    fun replaceAll(artifactsByFile: Map<String, List<Artifact>>) {
+        this.artifactsByFile.clear()
+        this.artifactsByFile.putAll(artifactsByFile)
+        merged = null
+    }
+
+    @Synchronized
+    fun update(path: String, artifacts: List<Artifact>) {
+        artifactsByFile[path] = artifacts
+        merged = null
+    }
+
+    @Synchronized
+    fun remove(path: String) {
+        if (artifactsByFile.remove(path) != null) {
+            merged = null
+        }
+    }
+
+    /**
+     * Returns at most [limit] artifacts matching [query], best matches first,
+     * or all of them ordered by coordinate when [query] is empty.
+     */
+    fun find(query: String, limit: Int): List<Artifact> {
+        val artifacts = artifacts()
+        return when {
+            query.isBlank() -> artifacts.take(limit)
+            else -> ArtifactQuery(query).rank(artifacts, limit)
+        }
+    }
+
+    @Synchronized
+    fun artifacts(): List<Artifact> {
+        merged?.let { return it }
+        val highest = HashMap<String, Artifact>()
+        artifactsByFile.values.forEach { artifacts ->
+            artifacts.forEach {
+                val key = "${it.groupId}:${it.name}"
+                val known = highest[key]
+                if (known == null || VersionComparator.compare(it.version, known.version) > 0) {
+                    highest[key] = it
+                }
+            }
+        }
+        return highest.values
+                .sortedWith(compareBy<Artifact> { it.groupId }.thenBy { it.name })
+                .also { merged = it }
+    }
+}
@@ -0,0 +1,38 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.index.VersionComparator
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.SearchResult
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Latest versions of `groupId:name` coordinates found out in the background,
+ * used to bring versions in search results up to date without asking any repository.
+ */
+class LatestVersions {
+
+    private val versions = ConcurrentHashMap<String, String>()
+
+    operator fun get(artifact: Artifact): String? = versions[key(artifact)]
+
+    fun put(artifact: Artifact, version: String) {
+        versions.merge(key(artifact), version) { known, found -> maxOf(known, found, VersionComparator) }
+    }
+
+    /**
+     * Returns [artifact] in its latest known version, if that is higher than its own.
+     */
+    fun upgrade(artifact: Artifact): Artifact {
+        val latest = get(artifact) ?: return artifact
+        return if (VersionComparator.compare(latest, artifact.version) > 0) artifact.copy(version = latest) else artifact
+    }
+
+    fun upgrade(result: SearchResult.Success): SearchResult.Success {
+        if (versions.isEmpty()) {
+            return result
+        }
+        return SearchResult.Success(result.artifacts.map { upgrade(it) }, result.suggestion, result.releasedAt)
+    }
+
+    private fun key(artifact: Artifact) = "${artifact.groupId}:${artifact.name}"
+}
@@ -1,21 +1,150 @@
 package me.scana.okgradle.data
 
 import io.reactivex.Observable
+import io.reactivex.Scheduler
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.index.SpellingSuggester
 import me.scana.okgradle.data.repository.ArtifactRepository
 import me.scana.okgradle.data.repository.ArtifactSearchException
 import me.scana.okgradle.data.repository.SearchResult
+import me.scana.okgradle.data.repository.SearchTimeoutException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 typealias Title = String
 
-class SearchArtifactsUseCase(private val repositories: Map<Title, ArtifactRepository>) {
+class SearchArtifactsUseCase(
+        private val repositories: Map<Title, ArtifactRepository>,
+        private val deadlinesInMillis: Map<Title, Long> = emptyMap(),
+        val cache: SearchResultCache = SearchResultCache(),
+        val suggester: SpellingSuggester = SpellingSuggester(),
+        private val usageStatistics: UsageStatistics? = null,
+        private val latestVersions: LatestVersions? = null,
+        private val scheduler: Scheduler = Schedulers.computation(),
+        private val ioScheduler: Scheduler = scheduler
+) {
 
-    fun search(query: String): Observable<SearchResult> {
-        return Single.concat(
-                repositories.map {
-                    it.value.search(query).onErrorReturn {
-                        t -> SearchResult.Error(ArtifactSearchException(it.key, t))
+    companion object {
+        const val DEFAULT_DEADLINE_IN_MILLIS = 5000L
+        private val WHITESPACE = "\\s+".toRegex()
+
+        /**
+         * Creates a pool of [threads] daemon threads named after [name], to back the schedulers of a use case.
+         */
+        fun newThreadPool(threads: Int, name: String): ExecutorService =
+                Executors.newFixedThreadPool(threads, SearchThreadFactory(name))
+    }
+
+    /**
+     * Subscribes to every repository at once. Each emitted [SearchResult.Success] holds
+     * everything found so far, deduplicated and ranked by [SearchResultMerger], with ties
+     * kept in repository order rather than arrival order. Versions older than the ones
+     * found out in the background by [latestVersions] are replaced with those, except in results
+     * of repositories that show the versions the project uses.
+     * A repository that misses its deadline is reported as a [SearchResult.Error].
+     *
+     * Repositories that need a longer query than [query] are skipped. The ones that would have
+     * to go over the network are only asked after [remoteDelayInMillis], which gives the user
+     * a chance to keep typing while cached and locally indexed results are already shown.
+     *
+     * A spelling suggestion found by [suggester] is emitted first, before any repository answers,
+     * and takes precedence over suggestions made by the repositories themselves.
+     *
+     * Everything runs on the search scheduler, so the caller never waits for the suggester or the cache
+     * while results of other searches are added to them. Only the blocking repository calls run on the I/O scheduler,
+     * and their deadlines start once a thread of it makes the call.
+     */
+    fun search(query: String, remoteDelayInMillis: Long = 0): Observable<SearchResult> = Observable.defer {
+        val normalizedQuery = query.trim().replace(WHITESPACE, " ")
+        val localSuggestion = suggester.suggest(normalizedQuery)
+        val merger = SearchResultMerger(normalizedQuery, usageWeight = { usageStatistics?.weight(it) ?: 0.0 })
+        val suggestions = arrayOfNulls<String>(repositories.size)
+        val searches = repositories.entries.mapIndexed { index, entry ->
+            if (normalizedQuery.length < entry.value.minQueryLength) {
+                return@mapIndexed Observable.empty<IndexedResult>()
+            }
+            searchRepository(entry.key, entry.value, normalizedQuery, remoteDelayInMillis)
+                    .onErrorReturn { t -> SearchResult.Error(ArtifactSearchException(entry.key, t)) }
+                    .map { IndexedResult(index, upgrade(entry.value, it)) }
+                    .toObservable()
+        }
+        val results = Observable.merge(searches).map { (index, result) ->
+            when (result) {
+                is SearchResult.Success -> {
+                    suggestions[index] = result.suggestion
+                    val artifacts = merger.add(index, result)
+                    SearchResult.Success(artifacts, localSuggestion ?: suggestions.filterNotNull().firstOrNull())
+                }
+                is SearchResult.Error -> result
+            }
+        }
+        when (localSuggestion) {
+            null -> results
+            else -> results.startWith(SearchResult.Success(suggestion = localSuggestion))
+        }
+    }.subscribeOn(scheduler)
+
+    /**
+     * Returns a use case that asks [repository] first and then the repositories of this one,
+     * sharing its cache, vocabulary and usage statistics.
+     */
+    fun including(title: Title, repository: ArtifactRepository) = SearchArtifactsUseCase(
+            mapOf(title to repository) + repositories,
+            deadlinesInMillis,
+            cache,
+            suggester,
+            usageStatistics,
+            latestVersions,
+            scheduler,
+            ioScheduler
+    )
+
+    private fun searchRepository(
+            title: Title,
+            repository: ArtifactRepository,
+            query: String,
+            remoteDelayInMillis: Long
+    ): Single<SearchResult> {
+        val cached = if (repository.cachesResults) cache.find(title, query) { repository.refine(it, query) } else null
+        if (cached != null) {
+            return Single.just(cached)
+        }
+        val deadline = deadlinesInMillis[title] ?: DEFAULT_DEADLINE_IN_MILLIS
+        val search = repository.search(query)
+                .timeout(deadline, TimeUnit.MILLISECONDS, Single.error(SearchTimeoutException(deadline)))
+                .subscribeOn(ioScheduler)
+                .doOnSuccess {
+                    if (it is SearchResult.Success) {
+                        if (repository.cachesResults) {
+                            cache.put(title, query, it)
+                        }
+                        suggester.addAll(it.artifacts)
                     }
-        }).toObservable()
+                }
+        if (remoteDelayInMillis <= 0 || repository.answersLocally(query)) {
+            return search
+        }
+        return Single.timer(remoteDelayInMillis, TimeUnit.MILLISECONDS, scheduler).flatMap { search }
+    }
+
+    private fun upgrade(repository: ArtifactRepository, result: SearchResult): SearchResult {
+        if (result !is SearchResult.Success || repository.showsUsedVersions) {
+            return result
+        }
+        return latestVersions?.upgrade(result) ?: result
+    }
+
+    private data class IndexedResult(val index: Int, val result: SearchResult)
+
+    private class SearchThreadFactory(private val name: String) : ThreadFactory {
+        private val counter = AtomicInteger()
+
+        override fun newThread(runnable: Runnable) = Thread(runnable, "$name-${counter.incrementAndGet()}").apply {
+            isDaemon = true
+        }
     }
 }
@@ -0,0 +1,78 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.SearchResult
+
+/**
+ * LRU cache of successful search results per repository and query.
+ * Size is bounded by the total number of cached artifacts, not by the number of queries.
+ */
+class SearchResultCache(private val maxArtifacts: Int = 5000) {
+
+    companion object {
+        const val DEFAULT_RECENT_ARTIFACTS_PER_RESULT = 3
+    }
+
+    private val entries = LinkedHashMap<Key, SearchResult.Success>(16, 0.75f, true)
+    private var cachedArtifacts = 0
+
+    @Volatile
+    var hitCount = 0L
+        private set
+
+    @Volatile
+    var missCount = 0L
+        private set
+
+    /**
+     * Returns the cached result for [query] or, failing that, asks [refine] to narrow down
+     * the result of the longest cached query that [query] starts with.
+     */
+    @Synchronized
+    fun find(title: Title, query: String, refine: (SearchResult.Success) -> SearchResult.Success?): SearchResult.Success? {
+        val result = entries[Key(title, query)] ?: refinePrefixResult(title, query, refine)
+        if (result != null) {
+            hitCount++
+        } else {
+            missCount++
+        }
+        return result
+    }
+
+    private fun refinePrefixResult(title: Title, query: String, refine: (SearchResult.Success) -> SearchResult.Success?): SearchResult.Success? {
+        for (length in query.length - 1 downTo 1) {
+            val prefixResult = entries[Key(title, query.substring(0, length))] ?: continue
+            return refine(prefixResult)?.also { put(title, query, it) }
+        }
+        return null
+    }
+
+    /**
+     * Returns at most [limit] distinct artifacts of the most recently used results, the best placed ones first.
+     */
+    @Synchronized
+    fun recentArtifacts(limit: Int, perResult: Int = DEFAULT_RECENT_ARTIFACTS_PER_RESULT): List<Artifact> {
+        return entries.values.reversed()
+                .asSequence()
+                .flatMap { it.artifacts.asSequence().take(perResult) }
+                .distinct()
+                .take(limit)
+                .toList()
+    }
+
+    @Synchronized
+    fun put(title: Title, query: String, result: SearchResult.Success) {
+        if (result.artifacts.size > maxArtifacts) {
+            return
+        }
+        entries.put(Key(title, query), result)?.let { cachedArtifacts -= it.artifacts.size }
+        cachedArtifacts += result.artifacts.size
+        val iterator = entries.values.iterator()
+        while (cachedArtifacts > maxArtifacts && iterator.hasNext()) {
+            cachedArtifacts -= iterator.next().artifacts.size
+            iterator.remove()
+        }
+    }
+
+    private data class Key(val title: Title, val query: String)
+}
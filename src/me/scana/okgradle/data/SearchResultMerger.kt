@@ -0,0 +1,109 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.index.ArtifactQuery
+import me.scana.okgradle.data.index.VersionComparator
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.SearchResult
+
+/**
+ * Merges results that repositories return for one query into a single ranked list.
+ * Artifacts are identified by `groupId:name` and only the highest version any repository found is kept.
+ *
+ * Artifacts are scored by how well they match the query, by how often the user picked them before
+ * according to [usageWeight], by how many repositories found them and how high they placed there,
+ * and by how recently their version was released.
+ * Every [add] takes at most [maxArtifactsPerResult] artifacts, sorts only the ones it touched
+ * and merges them into the previous ranking, so a late repository never triggers a full re-sort.
+ */
+class SearchResultMerger(
+        query: String,
+        private val maxArtifactsPerResult: Int = DEFAULT_MAX_ARTIFACTS_PER_RESULT,
+        private val usageWeight: (Artifact) -> Double = { 0.0 },
+        private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    companion object {
+        const val DEFAULT_MAX_ARTIFACTS_PER_RESULT = 200
+
+        private const val MATCH_WEIGHT = 10.0
+        private const val USAGE_WEIGHT = 10.0
+        private const val SOURCE_WEIGHT = 2.0
+        private const val POSITION_WEIGHT = 2.0
+        private const val RECENCY_WEIGHT = 2.0
+        private const val RECENCY_HALF_LIFE_IN_MILLIS = 365L * 24 * 60 * 60 * 1000
+
+        private val RANKING = compareByDescending<Candidate> { it.score }
+                .thenBy { it.repositoryIndex }
+                .thenBy { it.position }
+    }
+
+    private val artifactQuery = ArtifactQuery(query)
+    private val candidates = HashMap<String, Candidate>()
+    private var ranking: List<Candidate> = emptyList()
+
+    /**
+     * Adds [result] of the repository at [repositoryIndex] and returns all artifacts merged so far, best first.
+     */
+    fun add(repositoryIndex: Int, result: SearchResult.Success): List<Artifact> {
+        val artifacts = result.artifacts.take(maxArtifactsPerResult)
+        val touched = LinkedHashSet<Candidate>()
+        artifacts.forEachIndexed { position, artifact ->
+            val candidate = candidates.getOrPut("${artifact.groupId}:${artifact.name}") { Candidate(artifact) }
+            candidate.add(artifact, repositoryIndex, position, artifacts.size, result.releasedAt[artifact])
+            touched.add(candidate)
+        }
+        touched.forEach { it.score = score(it) }
+        ranking = merge(ranking.filter { it !in touched }, touched.sortedWith(RANKING))
+        return ranking.map { it.artifact }
+    }
+
+    private fun score(candidate: Candidate): Double {
+        val match = ArtifactQuery.NO_MATCH - artifactQuery.matchRank(candidate.artifact)
+        val usage = Math.log1p(usageWeight(candidate.artifact))
+        val sources = candidate.repositories.size - 1
+        val recency = candidate.releasedAt?.let {
+            Math.pow(0.5, maxOf(0L, clock() - it).toDouble() / RECENCY_HALF_LIFE_IN_MILLIS)
+        } ?: 0.0
+        return match * MATCH_WEIGHT + usage * USAGE_WEIGHT + sources * SOURCE_WEIGHT + candidate.placement * POSITION_WEIGHT + recency * RECENCY_WEIGHT
+    }
+
+    private fun merge(first: List<Candidate>, second: List<Candidate>): List<Candidate> {
+        val merged = ArrayList<Candidate>(first.size + second.size)
+        var i = 0
+        var j = 0
+        while (i < first.size && j < second.size) {
+            merged.add(if (RANKING.compare(first[i], second[j]) <= 0) first[i++] else second[j++])
+        }
+        merged.addAll(first.subList(i, first.size))
+        merged.addAll(second.subList(j, second.size))
+        return merged
+    }
+
+    /**
+     * One `groupId:name` with the best of what the repositories said about it.
+     * Identity equality is intended, so candidates can be collected in hash sets cheaply.
+     */
+    private class Candidate(var artifact: Artifact) {
+        val repositories = HashSet<Int>(2)
+        var repositoryIndex = Int.MAX_VALUE
+        var position = Int.MAX_VALUE
+        var placement = 0.0
+        var releasedAt: Long? = null
+        var score = 0.0
+
+        fun add(found: Artifact, repositoryIndex: Int, position: Int, resultSize: Int, foundReleasedAt: Long?) {
+            repositories.add(repositoryIndex)
+            if (repositoryIndex < this.repositoryIndex) {
+                this.repositoryIndex = repositoryIndex
+                this.position = position
+            }
+            placement = maxOf(placement, 1.0 - position.toDouble() / resultSize)
+            if (VersionComparator.compare(found.version, artifact.version) > 0) {
+                artifact = found
+                releasedAt = foundReleasedAt
+            } else if (found == artifact && foundReleasedAt != null) {
+                releasedAt = foundReleasedAt
+            }
+        }
+    }
+}
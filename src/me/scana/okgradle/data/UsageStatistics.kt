@@ -0,0 +1,166 @@
+package me.scana.okgradle.data
+
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.index.ArtifactQuery
+import me.scana.okgradle.data.repository.Artifact
+import java.io.File
+import java.io.FileWriter
+import java.io.IOException
+
+/**
+ * Counts how often artifacts were added to a build or copied, per `groupId:name`.
+ * Every use is worth 1 and loses half of its weight every [halfLifeInMillis], so what was used lately wins.
+ *
+ * Uses are appended to [file] on [scheduler] as `time weight groupId:name:version` lines. Once the log grows
+ * much longer than the number of artifacts in it, it is rewritten with one line per artifact and without
+ * artifacts that have not been used for a long time.
+ */
+class UsageStatistics(
+        private val file: File,
+        private val halfLifeInMillis: Long = DEFAULT_HALF_LIFE_IN_MILLIS,
+        private val scheduler: Scheduler = Schedulers.io(),
+        private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    companion object {
+        const val DEFAULT_HALF_LIFE_IN_MILLIS = 30L * 24 * 60 * 60 * 1000
+
+        private const val MIN_COMPACTED_LINES = 256
+        private const val MIN_WEIGHT = 0.01
+        private const val SEPARATOR = '\t'
+    }
+
+    private var usages: MutableMap<String, Usage>? = null
+    private var logLines = 0
+
+    /**
+     * Records one use of [artifact] and remembers its version as the one to suggest next time.
+     * The use is counted and logged on [scheduler], as that may have to read the whole log first.
+     */
+    fun record(artifact: Artifact) {
+        val now = clock()
+        scheduler.scheduleDirect { record(artifact, now) }
+    }
+
+    /**
+     * Returns the current, decayed weight of all uses of [artifact] in any version, or 0 when it was never used.
+     */
+    fun weight(artifact: Artifact): Double {
+        synchronized(this) {
+            return weight(loadedUsages()[key(artifact)], clock())
+        }
+    }
+
+    /**
+     * Returns used artifacts matching [query], most used first.
+     */
+    fun find(query: String, limit: Int): List<Artifact> {
+        val artifactQuery = ArtifactQuery(query)
+        return find(limit) { artifactQuery.matches(it) }
+    }
+
+    private fun find(limit: Int, predicate: (Artifact) -> Boolean): List<Artifact> {
+        synchronized(this) {
+            val now = clock()
+            return loadedUsages().values
+                    .filter { predicate(it.artifact) }
+                    .sortedByDescending { weight(it, now) }
+                    .take(limit)
+                    .map { it.artifact }
+        }
+    }
+
+    /**
+     * Returns at most [limit] used artifacts, most used first.
+     */
+    fun mostUsed(limit: Int): List<Artifact> = find(limit) { true }
+
+    /**
+     * Reads the log ahead of the first lookup.
+     */
+    fun load() {
+        synchronized(this) {
+            loadedUsages()
+        }
+    }
+
+    private fun record(artifact: Artifact, usedAt: Long) {
+        synchronized(this) {
+            val key = key(artifact)
+            val usages = loadedUsages()
+            usages[key] = Usage(artifact, weight(usages[key], usedAt) + 1, usedAt)
+            append(usedAt, 1.0, artifact)
+            if (logLines >= MIN_COMPACTED_LINES && logLines > 2 * usages.size) {
+                compact()
+            }
+        }
+    }
+
+    private fun weight(usage: Usage?, now: Long): Double {
+        if (usage == null) {
+            return 0.0
+        }
+        return usage.weight * Math.pow(0.5, maxOf(0L, now - usage.usedAt).toDouble() / halfLifeInMillis)
+    }
+
+    private fun loadedUsages(): MutableMap<String, Usage> {
+        usages?.let { return it }
+        val loaded = HashMap<String, Usage>()
+        logLines = 0
+        try {
+            if (file.exists()) {
+                file.forEachLine { line ->
+                    val (usedAt, weight, coordinate) = line.split(SEPARATOR).takeIf { it.size == 3 } ?: return@forEachLine
+                    val artifact = coordinate.split(':').takeIf { it.size == 3 }?.let { Artifact(it[0], it[1], it[2]) }
+                            ?: return@forEachLine
+                    val time = usedAt.toLongOrNull() ?: return@forEachLine
+                    val key = key(artifact)
+                    loaded[key] = Usage(artifact, weight(loaded[key], time) + (weight.toDoubleOrNull() ?: 0.0), time)
+                    logLines++
+                }
+            }
+        } catch (e: IOException) {
+            // usage statistics only affect ordering, starting over is fine
+        }
+        usages = loaded
+        return loaded
+    }
+
+    private fun append(usedAt: Long, weight: Double, artifact: Artifact) {
+        try {
+            file.parentFile?.mkdirs()
+            FileWriter(file, true).use { it.write(line(usedAt, weight, artifact)) }
+            logLines++
+        } catch (e: IOException) {
+            // the use still counts until the IDE is closed
+        }
+    }
+
+    private fun compact() {
+        synchronized(this) {
+            try {
+                val now = clock()
+                val usages = loadedUsages()
+                usages.values.removeAll { weight(it, now) < MIN_WEIGHT }
+                val temporaryFile = File(file.path + ".tmp")
+                temporaryFile.bufferedWriter().use { writer ->
+                    usages.values.forEach { writer.write(line(it.usedAt, it.weight, it.artifact)) }
+                }
+                if (!temporaryFile.renameTo(file)) {
+                    file.delete()
+                    temporaryFile.renameTo(file)
+                }
+                logLines = usages.size
+            } catch (e: IOException) {
+                // the log is compacted again after the next use
+            }
+        }
+    }
+
+    private fun line(usedAt: Long, weight: Double, artifact: Artifact) = "$usedAt$SEPARATOR$weight$SEPARATOR$artifact\n"
+
+    private fun key(artifact: Artifact) = "${artifact.groupId}:${artifact.name}"
+
+    private class Usage(val artifact: Artifact, val weight: Double, val usedAt: Long)
+}
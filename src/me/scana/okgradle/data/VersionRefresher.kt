@@ -0,0 +1,82 @@
+package me.scana.okgradle.data
+
+import io.reactivex.Scheduler
+import io.reactivex.disposables.Disposable
+import io.reactivex.disposables.Disposables
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.HostRateLimiter
+import me.scana.okgradle.data.repository.MavenMetadataResolver
+import me.scana.okgradle.data.repository.NetworkClient
+import okhttp3.HttpUrl
+import java.util.concurrent.TimeUnit
+
+/**
+ * Periodically looks up latest versions of the artifacts the user is most likely to pick again,
+ * as given by [hotArtifacts], and puts them into [latestVersions]. Every artifact is checked
+ * against the [sources] that accept its group, in order, until one of them knows it. Each check is
+ * a conditional GET of `maven-metadata.xml`, so unchanged metadata costs a 304 and no parsing.
+ *
+ * Requests are spaced out per host by [rateLimiter] and a round stops as soon as [isPaused] says so.
+ */
+class VersionRefresher(
+        networkClient: NetworkClient,
+        private val sources: List<Source>,
+        private val hotArtifacts: (Int) -> List<Artifact>,
+        private val latestVersions: LatestVersions,
+        private val isPaused: () -> Boolean = { false },
+        private val maxArtifacts: Int = DEFAULT_MAX_ARTIFACTS,
+        private val rateLimiter: HostRateLimiter = HostRateLimiter(DEFAULT_HOST_INTERVAL_IN_MILLIS),
+        private val scheduler: Scheduler = Schedulers.io()
+) {
+
+    companion object {
+        const val DEFAULT_MAX_ARTIFACTS = 50
+        const val DEFAULT_HOST_INTERVAL_IN_MILLIS = 1000L
+        const val DEFAULT_INITIAL_DELAY_IN_MILLIS = 60L * 1000
+        const val DEFAULT_PERIOD_IN_MILLIS = 6L * 60 * 60 * 1000
+    }
+
+    private val resolvers = sources.associateWith { MavenMetadataResolver(networkClient, it.url, scheduler = Schedulers.trampoline()) }
+
+    @Volatile
+    var refreshedCount = 0L
+        private set
+
+    /**
+     * Schedules a refresh every [periodInMillis], starting after [initialDelayInMillis].
+     */
+    fun start(
+            initialDelayInMillis: Long = DEFAULT_INITIAL_DELAY_IN_MILLIS,
+            periodInMillis: Long = DEFAULT_PERIOD_IN_MILLIS
+    ): Disposable {
+        if (sources.isEmpty()) {
+            return Disposables.disposed()
+        }
+        return scheduler.schedulePeriodicallyDirect({ refresh() }, initialDelayInMillis, periodInMillis, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * Checks every hot artifact once, on the calling thread.
+     */
+    fun refresh() {
+        for (artifact in hotArtifacts(maxArtifacts)) {
+            if (isPaused() || Thread.currentThread().isInterrupted) {
+                return
+            }
+            val coordinate = "${artifact.groupId}:${artifact.name}"
+            for (source in sources.filter { it.accepts(artifact.groupId) }) {
+                rateLimiter.acquire(source.url.host)
+                val version = resolvers.getValue(source).resolve(listOf(coordinate))[coordinate] ?: continue
+                latestVersions.put(artifact, version)
+                refreshedCount++
+                break
+            }
+        }
+    }
+
+    /**
+     * Maven repository at [url] that is asked about groups it [accepts].
+     */
+    class Source(val url: HttpUrl, val accepts: (groupId: String) -> Boolean = { true })
+}
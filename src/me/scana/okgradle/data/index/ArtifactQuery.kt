@@ -0,0 +1,52 @@
+package me.scana.okgradle.data.index
+
+import me.scana.okgradle.data.repository.Artifact
+
+/**
+ * Case-insensitive query over `groupId:name` coordinates. Every whitespace-separated
+ * token of the query has to appear somewhere in the coordinate.
+ */
+class ArtifactQuery(query: String) {
+
+    companion object {
+        const val NO_MATCH = 3
+    }
+
+    private val tokens = query.toLowerCase()
+            .split(' ', '\t')
+            .filter { it.isNotEmpty() }
+
+    private val name = tokens.lastOrNull() ?: ""
+
+    fun matches(artifact: Artifact): Boolean = matches("${artifact.groupId}:${artifact.name}".toLowerCase())
+
+    fun matches(coordinate: String): Boolean = tokens.isNotEmpty() && tokens.all { coordinate.contains(it) }
+
+    /**
+     * Returns at most [limit] matching artifacts: exact name matches first,
+     * then names starting with the query, then everything else in the original order.
+     */
+    fun rank(artifacts: List<Artifact>, limit: Int): List<Artifact> {
+        return artifacts.asSequence()
+                .map { it to matchRank(it) }
+                .filter { it.second < NO_MATCH }
+                .sortedBy { it.second }
+                .map { it.first }
+                .take(limit)
+                .toList()
+    }
+
+    /**
+     * Returns 0 when the artifact's name equals the query, 1 when it starts with it,
+     * 2 for any other match and [NO_MATCH] when the artifact does not match at all.
+     */
+    fun matchRank(artifact: Artifact): Int {
+        val artifactName = artifact.name.toLowerCase()
+        return when {
+            !matches(artifact) -> NO_MATCH
+            artifactName == name -> 0
+            artifactName.startsWith(name) -> 1
+            else -> 2
+        }
+    }
+}
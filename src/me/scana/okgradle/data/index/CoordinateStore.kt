@@ -0,0 +1,72 @@
+package me.scana.okgradle.data.index
+
+import me.scana.okgradle.data.repository.Artifact
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+
+/**
+ * Artifact coordinates kept outside of the heap: every group, name and version is stored once
+ * in a [StringTable] and every artifact is a fixed-width record of three indices into that table.
+ * [Artifact] objects are only created for the rows someone asks for.
+ */
+class CoordinateStore private constructor(
+        val strings: StringTable,
+        private val records: ByteBuffer
+) {
+
+    companion object {
+        private const val RECORD_SIZE = 3 * Int.SIZE_BYTES
+
+        val EMPTY: CoordinateStore = ByteArrayOutputStream().let { bytes ->
+            DataOutputStream(bytes).use { write(emptySequence(), it) }
+            read(ByteBuffer.wrap(bytes.toByteArray()))
+        }
+
+        /**
+         * Writes [artifacts] in their order. The sequence is iterated twice, so it can be computed
+         * on the fly instead of being held in memory.
+         */
+        fun write(artifacts: Sequence<Artifact>, output: DataOutputStream) {
+            val strings = HashSet<String>()
+            var size = 0
+            artifacts.forEach {
+                strings.add(it.groupId)
+                strings.add(it.name)
+                strings.add(it.version)
+                size++
+            }
+            val indices = StringTable.write(strings, output)
+            output.writeInt(size)
+            artifacts.forEach {
+                output.writeInt(indices.getValue(it.groupId))
+                output.writeInt(indices.getValue(it.name))
+                output.writeInt(indices.getValue(it.version))
+            }
+        }
+
+        /**
+         * Reads a store written by [write], starting at the position of [buffer] and moving it past the store.
+         */
+        fun read(buffer: ByteBuffer): CoordinateStore {
+            val strings = StringTable.read(buffer)
+            val size = buffer.int
+            return CoordinateStore(strings, buffer.nextSlice(size * RECORD_SIZE))
+        }
+    }
+
+    val size: Int = records.limit() / RECORD_SIZE
+
+    fun groupId(id: Int) = strings[records.getInt(id * RECORD_SIZE)]
+
+    /**
+     * Index of the artifact's name in [strings], which allows comparing names without decoding them.
+     */
+    fun nameIndex(id: Int) = records.getInt(id * RECORD_SIZE + Int.SIZE_BYTES)
+
+    fun name(id: Int) = strings[nameIndex(id)]
+
+    fun version(id: Int) = strings[records.getInt(id * RECORD_SIZE + 2 * Int.SIZE_BYTES)]
+
+    fun artifact(id: Int) = Artifact(groupId(id), name(id), version(id))
+}
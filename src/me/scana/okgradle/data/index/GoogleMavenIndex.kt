@@ -0,0 +1,269 @@
+package me.scana.okgradle.data.index
+
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.NetworkResult
+import me.scana.okgradle.data.repository.Validators
+import okhttp3.HttpUrl
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.Request
+import java.io.*
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
+
+/**
+ * Local copy of Google's Maven repository listing, built from `master-index.xml`
+ * and the `group-index.xml` of every group. Refreshes only re-download groups
+ * that changed since the previous fetch and the result is kept in [indexFile].
+ */
+class GoogleMavenIndex(
+        private val networkClient: NetworkClient,
+        private val indexFile: File,
+        private val maxAgeInMillis: Long = DEFAULT_MAX_AGE_IN_MILLIS,
+        private val scheduler: Scheduler = Schedulers.io()
+) {
+
+    companion object {
+        val GOOGLE_MAVEN_URL: HttpUrl = "https://dl.google.com/dl/android/maven2/".toHttpUrl()
+
+        const val MASTER_INDEX = "master-index.xml"
+        const val GROUP_INDEX = "group-index.xml"
+        const val DEFAULT_MAX_AGE_IN_MILLIS = 24L * 60 * 60 * 1000
+
+        private const val FORMAT_VERSION = 1
+        private const val MAX_CONCURRENT_FETCHES = 4
+        private const val VERSIONS_ATTRIBUTE = "versions"
+    }
+
+    private val xmlInputFactory = XMLInputFactory.newInstance()
+    private val refreshing = AtomicBoolean()
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    /**
+     * True once a non-empty index has been read into memory, so [search] will not touch the disk.
+     */
+    val isLoaded: Boolean
+        get() = snapshot?.isEmpty() == false
+
+    fun containsGroup(groupId: String) = loadedSnapshot().groups.containsKey(groupId)
+
+    /**
+     * Returns every indexed artifact, reading the index from disk if needed.
+     */
+    fun artifacts(): List<Artifact> = loadedSnapshot().artifacts
+
+    /**
+     * Returns artifacts matching [query], best matches first, or null when nothing has been indexed yet.
+     * When nothing matches, artifacts with the most similar names are returned instead.
+     */
+    fun search(query: String, limit: Int): List<Artifact>? {
+        val current = loadedSnapshot()
+        if (current.isEmpty()) {
+            return null
+        }
+        val matches = current.trigramIndex.find(query) { current.coordinate(it) }
+        if (matches.isEmpty()) {
+            return current.trigramIndex.findSimilar(query, limit).map { current.artifacts[it] }
+        }
+        return ArtifactQuery(query).rank(matches.map { current.artifacts[it] }, limit)
+    }
+
+    /**
+     * Starts a background refresh when the index is missing or older than [maxAgeInMillis].
+     */
+    fun refreshIfStale() {
+        if (System.currentTimeMillis() - loadedSnapshot().fetchedAt < maxAgeInMillis) {
+            return
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            Observable.fromCallable { refresh() }
+                    .subscribeOn(scheduler)
+                    .doFinally { refreshing.set(false) }
+                    .subscribe({}, {})
+        }
+    }
+
+    /**
+     * Brings the index up to date, reusing every group whose `group-index.xml` did not change.
+     */
+    fun refresh() {
+        val previous = loadedSnapshot()
+        val masterResponse = networkClient.revalidate(request(MASTER_INDEX), previous.masterValidators) { parseMasterIndex(charStream()) }
+        val master = when (masterResponse) {
+            is NetworkResult.Success -> masterResponse.data
+            is NetworkResult.Failure -> return
+        }
+        val groupIds = master.data ?: previous.groups.keys.toList()
+        val groups = Observable.fromIterable(groupIds)
+                .flatMap({ groupId ->
+                    Observable.fromCallable { fetchGroup(groupId, previous.groups[groupId]) }
+                            .subscribeOn(scheduler)
+                }, MAX_CONCURRENT_FETCHES)
+                .filter { it.artifacts.isNotEmpty() }
+                .toList()
+                .blockingGet()
+        val updated = Snapshot(
+                System.currentTimeMillis(),
+                master.validators,
+                groups.sortedBy { it.groupId }.associateBy { it.groupId }
+        )
+        snapshot = updated
+        save(updated)
+    }
+
+    private fun fetchGroup(groupId: String, previous: Group?): Group {
+        val request = request(groupId.replace('.', '/') + "/" + GROUP_INDEX)
+        val response = networkClient.revalidate(request, previous?.validators ?: Validators.NONE) {
+            parseGroupIndex(groupId, charStream())
+        }
+        val empty = Group(groupId, Validators.NONE, emptyList())
+        return when (response) {
+            is NetworkResult.Success -> response.data.data
+                    ?.let { Group(groupId, response.data.validators, it) }
+                    ?: previous
+                    ?: empty
+            is NetworkResult.Failure -> previous ?: empty
+        }
+    }
+
+    private fun request(path: String): Request {
+        val url = GOOGLE_MAVEN_URL.newBuilder()
+                .addPathSegments(path)
+                .build()
+        return Request.Builder()
+                .url(url)
+                .build()
+    }
+
+    private fun parseMasterIndex(reader: Reader): List<String> {
+        val groupIds = mutableListOf<String>()
+        readChildElements(reader) { groupIds.add(localName) }
+        return groupIds
+    }
+
+    private fun parseGroupIndex(groupId: String, reader: Reader): List<Artifact> {
+        val artifacts = mutableListOf<Artifact>()
+        readChildElements(reader) {
+            val versions = getAttributeValue(null, VERSIONS_ATTRIBUTE)
+                    ?.split(',')
+                    ?.filter { it.isNotBlank() }
+            versions?.lastOrNull()?.let { artifacts.add(Artifact(groupId, localName, it.trim())) }
+        }
+        return artifacts
+    }
+
+    /**
+     * Calls [onChild] for every element directly below the document's root element.
+     */
+    private fun readChildElements(reader: Reader, onChild: XMLStreamReader.() -> Unit) {
+        val xmlReader = xmlInputFactory.createXMLStreamReader(reader)
+        try {
+            var depth = 0
+            while (xmlReader.hasNext()) {
+                when (xmlReader.next()) {
+                    XMLStreamConstants.START_ELEMENT -> {
+                        depth++
+                        if (depth == 2) {
+                            xmlReader.onChild()
+                        }
+                    }
+                    XMLStreamConstants.END_ELEMENT -> depth--
+                }
+            }
+        } finally {
+            xmlReader.close()
+        }
+    }
+
+    private fun loadedSnapshot(): Snapshot {
+        snapshot?.let { return it }
+        synchronized(this) {
+            return snapshot ?: load().also { snapshot = it }
+        }
+    }
+
+    private fun load(): Snapshot {
+        if (!indexFile.isFile) {
+            return Snapshot.EMPTY
+        }
+        return try {
+            DataInputStream(BufferedInputStream(GZIPInputStream(FileInputStream(indexFile)))).use { input ->
+                if (input.readInt() != FORMAT_VERSION) {
+                    return Snapshot.EMPTY
+                }
+                val fetchedAt = input.readLong()
+                val masterValidators = input.readValidators()
+                val groups = LinkedHashMap<String, Group>()
+                repeat(input.readInt()) {
+                    val groupId = input.readUTF()
+                    val validators = input.readValidators()
+                    val artifacts = List(input.readInt()) { Artifact(groupId, input.readUTF(), input.readUTF()) }
+                    groups[groupId] = Group(groupId, validators, artifacts)
+                }
+                Snapshot(fetchedAt, masterValidators, groups)
+            }
+        } catch (exception: IOException) {
+            Snapshot.EMPTY
+        }
+    }
+
+    private fun save(snapshot: Snapshot) {
+        try {
+            indexFile.parentFile?.mkdirs()
+            val temporaryFile = File(indexFile.path + ".tmp")
+            DataOutputStream(BufferedOutputStream(GZIPOutputStream(FileOutputStream(temporaryFile)))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeLong(snapshot.fetchedAt)
+                output.writeValidators(snapshot.masterValidators)
+                output.writeInt(snapshot.groups.size)
+                snapshot.groups.values.forEach { group ->
+                    output.writeUTF(group.groupId)
+                    output.writeValidators(group.validators)
+                    output.writeInt(group.artifacts.size)
+                    group.artifacts.forEach {
+                        output.writeUTF(it.name)
+                        output.writeUTF(it.version)
+                    }
+                }
+            }
+            if (!temporaryFile.renameTo(indexFile)) {
+                indexFile.delete()
+                temporaryFile.renameTo(indexFile)
+            }
+        } catch (exception: IOException) {
+            // the in-memory snapshot is still up to date, next refresh will try again
+        }
+    }
+
+    private fun DataInputStream.readValidators() = Validators(readUTF().ifEmpty { null }, readUTF().ifEmpty { null })
+
+    private fun DataOutputStream.writeValidators(validators: Validators) {
+        writeUTF(validators.etag ?: "")
+        writeUTF(validators.lastModified ?: "")
+    }
+
+    private class Group(val groupId: String, val validators: Validators, val artifacts: List<Artifact>)
+
+    private class Snapshot(val fetchedAt: Long, val masterValidators: Validators, val groups: Map<String, Group>) {
+        val artifacts: List<Artifact> = groups.values.flatMap { it.artifacts }
+
+        val trigramIndex by lazy { TrigramIndex.build(artifacts.size) { coordinate(it) } }
+
+        fun isEmpty() = artifacts.isEmpty()
+
+        fun coordinate(id: Int) = "${artifacts[id].groupId}:${artifacts[id].name}"
+
+        companion object {
+            val EMPTY = Snapshot(0, Validators.NONE, emptyMap())
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package me.scana.okgradle.data.index
+
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.NetworkResult
+import me.scana.okgradle.data.repository.Revalidated
+import me.scana.okgradle.data.repository.Validators
+import okhttp3.CacheControl
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.Request
+import java.io.*
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.GZIPInputStream
+
+/**
+ * Local search engine over Maven Central coordinates, so that searching works offline and behind proxies.
+ *
+ * [source] is a file path or an http(s) URL of either a Maven Indexer directory (the one holding
+ * `nexus-maven-repository-index.properties`) or a plain text dump with one `groupId:artifactId:version`
+ * per line, ending in `.txt` or `.txt.gz`. Maven Indexer sources are updated with incremental chunks
+ * whenever the chain allows it, dumps are only downloaded again when they changed.
+ * Only the latest version of every artifact is kept. The coordinates and a [TrigramIndex] over them
+ * live in a memory-mapped [indexFile], so the heap only holds what a search returns and the OS
+ * page cache shares the data between IDE instances.
+ */
+class MavenCentralIndex(
+        private val networkClient: NetworkClient,
+        private val source: String,
+        private val indexFile: File,
+        private val maxAgeInMillis: Long = DEFAULT_MAX_AGE_IN_MILLIS,
+        private val scheduler: Scheduler = Schedulers.io()
+) {
+
+    companion object {
+        const val DEFAULT_MAX_AGE_IN_MILLIS = 24L * 60 * 60 * 1000
+
+        private const val FORMAT_VERSION = 3
+        private const val NO_INCREMENTAL = -1
+    }
+
+    private val isUrl = source.startsWith("http://") || source.startsWith("https://")
+    private val isDump = source.endsWith(".txt") || source.endsWith(".txt.gz")
+    private val refreshing = AtomicBoolean()
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    /**
+     * True once a non-empty index has been mapped, so [search] will not have to open the file first.
+     */
+    val isLoaded: Boolean
+        get() = snapshot?.isEmpty() == false
+
+    /**
+     * Returns artifacts whose `groupId:name` contains every token of [query], best matches first,
+     * or null when nothing has been indexed yet. Exact artifact names go first, shortest group first,
+     * then names starting with the query and then everything else, both in coordinate order.
+     * When nothing contains the query, artifacts with the most similar names are returned instead.
+     */
+    fun search(query: String, limit: Int): List<Artifact>? {
+        val current = loadedSnapshot()
+        if (current.isEmpty()) {
+            return null
+        }
+        val store = current.store
+        val artifactQuery = ArtifactQuery(query)
+        val name = query.trim().toLowerCase().substringAfterLast(' ').substringAfterLast(':')
+        val exactName = store.strings.indexOf(name)
+        val prefixNames = store.strings.prefixRange(name)
+        val exactMatches = mutableListOf<Int>()
+        val prefixMatches = mutableListOf<Int>()
+        val otherMatches = mutableListOf<Int>()
+        for (id in current.trigramIndex.candidates(query)) {
+            val nameIndex = store.nameIndex(id)
+            val bucket = when {
+                nameIndex == exactName -> exactMatches
+                prefixMatches.size >= limit -> null
+                nameIndex in prefixNames -> prefixMatches
+                otherMatches.size < limit -> otherMatches
+                else -> null
+            }
+            // candidates share all trigrams of the query, only the ones that will be shown are checked for real
+            if (bucket != null && artifactQuery.matches(store.artifact(id))) {
+                bucket.add(id)
+            }
+        }
+        if (exactMatches.isEmpty() && prefixMatches.isEmpty() && otherMatches.isEmpty()) {
+            return current.trigramIndex.findSimilar(query, limit).map { store.artifact(it) }
+        }
+        return (exactMatches.sortedBy { store.groupId(it).length } + prefixMatches + otherMatches)
+                .take(limit)
+                .map { store.artifact(it) }
+    }
+
+    /**
+     * Starts a background refresh when the index is missing or older than [maxAgeInMillis].
+     */
+    fun refreshIfStale() {
+        if (System.currentTimeMillis() - loadedSnapshot().fetchedAt < maxAgeInMillis) {
+            return
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            Observable.fromCallable { refresh() }
+                    .subscribeOn(scheduler)
+                    .doFinally { refreshing.set(false) }
+                    .subscribe({}, {})
+        }
+    }
+
+    /**
+     * Brings the index up to date with [source]. Keeps the current index when the source cannot be read.
+     */
+    fun refresh() {
+        val previous = loadedSnapshot()
+        val updated = when {
+            isDump -> refreshFromDump(previous)
+            else -> refreshFromNexusIndex(previous)
+        } ?: return
+        snapshot = when (updated.versions) {
+            null -> previous.refreshed(updated.fetchedAt).also { indexFile.setLastModified(updated.fetchedAt) }
+            else -> save(updated)
+        } ?: return
+    }
+
+    private fun refreshFromDump(previous: Snapshot): Update? {
+        val dump = read("", previous.validators) { input ->
+            val versions = Versions()
+            val stream = if (source.endsWith(".gz")) GZIPInputStream(input) else input
+            stream.bufferedReader().forEachLine { line ->
+                val parts = line.trim().split(':')
+                if (parts.size == 3 && !line.startsWith("#")) {
+                    versions.add(Artifact(parts[0], parts[1], parts[2]))
+                }
+            }
+            versions
+        } ?: return null
+        return Update(System.currentTimeMillis(), dump.validators, "", NO_INCREMENTAL, dump.data)
+    }
+
+    /**
+     * Applies the incremental chunks published since the last refresh or, when the chain was reset
+     * or chunks are missing, reads the full index again.
+     */
+    private fun refreshFromNexusIndex(previous: Snapshot): Update? {
+        val properties = read(NexusIndexReader.PROPERTIES_FILE, Validators.NONE) { input ->
+            Properties().apply { load(input) }
+        }?.data ?: return null
+        val chainId = properties.getProperty(NexusIndexReader.CHAIN_ID_PROPERTY) ?: ""
+        val incrementals = properties.stringPropertyNames()
+                .filter { it.startsWith(NexusIndexReader.INCREMENTAL_PROPERTY_PREFIX) }
+                .mapNotNull { properties.getProperty(it).toIntOrNull() }
+        val lastIncremental = properties.getProperty(NexusIndexReader.LAST_INCREMENTAL_PROPERTY)?.toIntOrNull()
+                ?: incrementals.max()
+                ?: NO_INCREMENTAL
+        if (chainId == previous.chainId && lastIncremental == previous.lastIncremental && !previous.isEmpty()) {
+            return Update(System.currentTimeMillis(), previous.validators, chainId, lastIncremental, null)
+        }
+        val missingChunks = (previous.lastIncremental + 1..lastIncremental).toList()
+        val canUpdate = chainId == previous.chainId
+                && previous.lastIncremental != NO_INCREMENTAL
+                && !previous.isEmpty()
+                && incrementals.containsAll(missingChunks)
+        val versions = when {
+            canUpdate -> Versions(previous.store).takeIf { versions ->
+                missingChunks.all { readNexusFile(NexusIndexReader.incrementalFile(it), versions) }
+            }
+            else -> Versions().takeIf { readNexusFile(NexusIndexReader.FULL_INDEX_FILE, it) }
+        } ?: return null
+        return Update(System.currentTimeMillis(), Validators.NONE, chainId, lastIncremental, versions)
+    }
+
+    private fun readNexusFile(name: String, versions: Versions): Boolean {
+        return read(name, Validators.NONE) { input ->
+            NexusIndexReader(input).read(versions::add, versions::remove)
+        } != null
+    }
+
+    /**
+     * Reads [name] relative to [source], or [source] itself when [name] is empty. Returns a [Revalidated]
+     * without data when the copy described by [validators] is still current and null when reading failed.
+     */
+    private fun <T> read(name: String, validators: Validators, parse: (InputStream) -> T): Revalidated<T>? {
+        if (isUrl) {
+            val base = if (name.isEmpty() || source.endsWith("/")) source else "$source/"
+            val request = Request.Builder()
+                    .url((base + name).toHttpUrl())
+                    .cacheControl(CacheControl.Builder().noStore().build())
+                    .build()
+            return when (val response = networkClient.revalidate(request, validators) { parse(byteStream()) }) {
+                is NetworkResult.Success -> response.data
+                is NetworkResult.Failure -> null
+            }
+        }
+        val file = if (name.isEmpty()) File(source) else File(source, name)
+        if (!file.isFile) {
+            return null
+        }
+        val fileValidators = Validators(null, file.lastModified().toString())
+        if (fileValidators == validators) {
+            return Revalidated(null, validators)
+        }
+        return try {
+            Revalidated(FileInputStream(file).use(parse), fileValidators)
+        } catch (exception: IOException) {
+            null
+        }
+    }
+
+    private fun loadedSnapshot(): Snapshot {
+        snapshot?.let { return it }
+        synchronized(this) {
+            return snapshot ?: load().also { snapshot = it }
+        }
+    }
+
+    private fun load(): Snapshot {
+        if (!indexFile.isFile) {
+            return Snapshot.EMPTY
+        }
+        return try {
+            map(indexFile)
+        } catch (exception: IOException) {
+            Snapshot.EMPTY
+        } catch (exception: RuntimeException) {
+            // truncated or otherwise damaged file, the next refresh will replace it
+            Snapshot.EMPTY
+        }
+    }
+
+    private fun map(file: File): Snapshot {
+        val buffer = FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+        }
+        if (buffer.int != FORMAT_VERSION || buffer.getString() != source) {
+            return Snapshot.EMPTY
+        }
+        return Snapshot(
+                file.lastModified(),
+                Validators(buffer.getString().ifEmpty { null }, buffer.getString().ifEmpty { null }),
+                buffer.getString(),
+                buffer.int,
+                CoordinateStore.read(buffer),
+                TrigramIndex.read(buffer)
+        )
+    }
+
+    /**
+     * Writes [update] to [indexFile] and maps it, returning null when that failed.
+     */
+    private fun save(update: Update): Snapshot? {
+        val artifacts = update.versions?.artifacts() ?: emptySequence()
+        return try {
+            indexFile.parentFile?.mkdirs()
+            val temporaryFile = File(indexFile.path + ".tmp")
+            DataOutputStream(BufferedOutputStream(FileOutputStream(temporaryFile))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeString(source)
+                output.writeString(update.validators.etag ?: "")
+                output.writeString(update.validators.lastModified ?: "")
+                output.writeString(update.chainId)
+                output.writeInt(update.lastIncremental)
+                CoordinateStore.write(artifacts, output)
+                TrigramIndex.write(artifacts.map { "${it.groupId}:${it.name}" }, output)
+            }
+            // a file that is still mapped cannot be replaced on Windows, the new one is used until the next start then
+            val savedFile = when {
+                temporaryFile.renameTo(indexFile) -> indexFile
+                indexFile.delete() && temporaryFile.renameTo(indexFile) -> indexFile
+                else -> temporaryFile
+            }
+            map(savedFile)
+        } catch (exception: IOException) {
+            null
+        }
+    }
+
+    private fun ByteBuffer.getString(): String {
+        val bytes = ByteArray(int)
+        get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private fun DataOutputStream.writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    /**
+     * Latest known version of every artifact, sorted by group and name. Only changes are kept on the heap,
+     * on top of [base], a mapped store in the same order that they are merged with while being written.
+     */
+    private class Versions(private val base: CoordinateStore = CoordinateStore.EMPTY) {
+
+        // a null version marks an artifact removed from the base
+        private val changes = TreeMap<String, TreeMap<String, String?>>()
+
+        fun add(artifact: Artifact) {
+            val current = versionOf(artifact.groupId, artifact.name)
+            if (current == null || VersionComparator.compare(artifact.version, current) > 0) {
+                changes.getOrPut(artifact.groupId) { TreeMap() }[artifact.name] = artifact.version
+            }
+        }
+
+        /**
+         * Older versions are not tracked, so deleting the latest one drops the artifact
+         * until a later chunk publishes it again.
+         */
+        fun remove(artifact: Artifact) {
+            if (versionOf(artifact.groupId, artifact.name) == artifact.version) {
+                changes.getOrPut(artifact.groupId) { TreeMap() }[artifact.name] = null
+            }
+        }
+
+        /**
+         * Returns the merged artifacts in order. Every iteration of the sequence reads the base again.
+         */
+        fun artifacts(): Sequence<Artifact> = sequence {
+            val changed = changes.asSequence()
+                    .flatMap { (groupId, artifacts) -> artifacts.asSequence().map { Change(groupId, it.key, it.value) } }
+                    .iterator()
+            var change = changed.nextOrNull()
+            for (id in 0 until base.size) {
+                val groupId = base.groupId(id)
+                val name = base.name(id)
+                while (change != null && change.compareTo(groupId, name) < 0) {
+                    change.artifact()?.let { yield(it) }
+                    change = changed.nextOrNull()
+                }
+                if (change != null && change.compareTo(groupId, name) == 0) {
+                    change.artifact()?.let { yield(it) }
+                    change = changed.nextOrNull()
+                } else {
+                    yield(Artifact(groupId, name, base.version(id)))
+                }
+            }
+            while (change != null) {
+                change.artifact()?.let { yield(it) }
+                change = changed.nextOrNull()
+            }
+        }
+
+        private fun versionOf(groupId: String, name: String): String? {
+            val changedArtifacts = changes[groupId]
+            if (changedArtifacts != null && changedArtifacts.containsKey(name)) {
+                return changedArtifacts[name]
+            }
+            val id = baseIndexOf(groupId, name)
+            return if (id >= 0) base.version(id) else null
+        }
+
+        private fun baseIndexOf(groupId: String, name: String): Int {
+            var low = 0
+            var high = base.size - 1
+            while (low <= high) {
+                val middle = (low + high) ushr 1
+                val order = compareValues(base.groupId(middle), groupId).takeIf { it != 0 }
+                        ?: compareValues(base.name(middle), name)
+                when {
+                    order < 0 -> low = middle + 1
+                    order > 0 -> high = middle - 1
+                    else -> return middle
+                }
+            }
+            return -1
+        }
+
+        private fun <T> Iterator<T>.nextOrNull() = if (hasNext()) next() else null
+
+        private class Change(val groupId: String, val name: String, val version: String?) {
+
+            fun artifact() = version?.let { Artifact(groupId, name, it) }
+
+            fun compareTo(otherGroupId: String, otherName: String): Int {
+                return compareValues(groupId, otherGroupId).takeIf { it != 0 } ?: compareValues(name, otherName)
+            }
+        }
+    }
+
+    private class Update(
+            val fetchedAt: Long,
+            val validators: Validators,
+            val chainId: String,
+            val lastIncremental: Int,
+            /**
+             * Null when the source did not change since the previous refresh.
+             */
+            val versions: Versions?
+    )
+
+    private class Snapshot(
+            val fetchedAt: Long,
+            val validators: Validators,
+            val chainId: String,
+            val lastIncremental: Int,
+            val store: CoordinateStore,
+            val trigramIndex: TrigramIndex
+    ) {
+
+        fun isEmpty() = store.size == 0
+
+        fun refreshed(fetchedAt: Long) = Snapshot(fetchedAt, validators, chainId, lastIncremental, store, trigramIndex)
+
+        companion object {
+            val EMPTY = Snapshot(0, Validators.NONE, "", NO_INCREMENTAL, CoordinateStore.EMPTY, TrigramIndex.EMPTY)
+        }
+    }
+}
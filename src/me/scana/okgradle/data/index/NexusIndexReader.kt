@@ -0,0 +1,78 @@
+package me.scana.okgradle.data.index
+
+import me.scana.okgradle.data.repository.Artifact
+import java.io.BufferedInputStream
+import java.io.DataInputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.util.zip.GZIPInputStream
+
+/**
+ * Reads a Maven Indexer transfer file (`nexus-maven-repository-index.gz` or one of its incremental chunks)
+ * and reports main artifacts of every added or deleted document. Classified artifacts
+ * like sources or javadoc jars, group listings and other bookkeeping documents are skipped.
+ */
+class NexusIndexReader(input: InputStream) {
+
+    companion object {
+        const val PROPERTIES_FILE = "nexus-maven-repository-index.properties"
+        const val FULL_INDEX_FILE = "nexus-maven-repository-index.gz"
+        const val CHAIN_ID_PROPERTY = "nexus.index.chain-id"
+        const val LAST_INCREMENTAL_PROPERTY = "nexus.index.last-incremental"
+        const val INCREMENTAL_PROPERTY_PREFIX = "nexus.index.incremental-"
+
+        private const val SUPPORTED_VERSION = 1
+        private const val ARTIFACT_INFO = "u"
+        private const val DELETED_ARTIFACT_INFO = "del"
+        private const val NO_CLASSIFIER = "NA"
+
+        fun incrementalFile(chunk: Int) = "nexus-maven-repository-index.$chunk.gz"
+    }
+
+    private val input = DataInputStream(BufferedInputStream(GZIPInputStream(input)))
+
+    fun read(onAdded: (Artifact) -> Unit, onDeleted: (Artifact) -> Unit) {
+        val version = input.readByte().toInt()
+        if (version != SUPPORTED_VERSION) {
+            throw IOException("unsupported index version $version")
+        }
+        input.readLong() // timestamp
+        while (true) {
+            val fieldCount = try {
+                input.readInt()
+            } catch (exception: EOFException) {
+                return
+            }
+            var added: Artifact? = null
+            var deleted: Artifact? = null
+            repeat(fieldCount) {
+                input.readByte() // flags
+                val name = input.readUTF()
+                val value = readString()
+                when (name) {
+                    ARTIFACT_INFO -> added = parseArtifactInfo(value)
+                    DELETED_ARTIFACT_INFO -> deleted = parseArtifactInfo(value)
+                }
+            }
+            deleted?.let(onDeleted) ?: added?.let(onAdded)
+        }
+    }
+
+    private fun readString(): String {
+        val bytes = ByteArray(input.readInt())
+        input.readFully(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    /**
+     * Parses `groupId|artifactId|version|classifier|extension`, returning null for classified artifacts.
+     */
+    private fun parseArtifactInfo(value: String): Artifact? {
+        val parts = value.split('|')
+        if (parts.size < 4 || parts[3] != NO_CLASSIFIER) {
+            return null
+        }
+        return Artifact(parts[0], parts[1], parts[2])
+    }
+}
@@ -0,0 +1,139 @@
+package me.scana.okgradle.data.index
+
+import me.scana.okgradle.data.repository.Artifact
+import java.util.TreeSet
+
+/**
+ * "Did you mean" suggestions computed locally from words of group ids and artifact names seen so far.
+ * Words are kept in a BK-tree, so a lookup only measures the distance to a small part of the vocabulary.
+ * Distance counts insertions, deletions, substitutions and swaps of neighbouring characters.
+ */
+class SpellingSuggester(private val maxWords: Int = DEFAULT_MAX_WORDS) {
+
+    companion object {
+        const val DEFAULT_MAX_WORDS = 50_000
+
+        private const val MIN_WORD_LENGTH = 3
+        private const val SHORT_WORD_LENGTH = 4
+        private val WORD = "[\\p{L}\\p{N}]+".toRegex()
+    }
+
+    private var root: Node? = null
+    private val nodes = HashMap<String, Node>()
+    private val sortedWords = TreeSet<String>()
+
+    fun addAll(artifacts: List<Artifact>) {
+        synchronized(this) {
+            artifacts.forEach {
+                addWords(it.groupId)
+                addWords(it.name)
+            }
+        }
+    }
+
+    /**
+     * Returns [query] with misspelled words replaced by the closest known ones,
+     * or null when every word is known or nothing close enough was found.
+     */
+    fun suggest(query: String): String? {
+        val normalizedQuery = query.trim().toLowerCase()
+        var changed = false
+        val suggestion = synchronized(this) {
+            WORD.replace(normalizedQuery) { match ->
+                correction(match.value)?.also { changed = true } ?: match.value
+            }
+        }
+        return if (changed) suggestion else null
+    }
+
+    private fun addWords(text: String) {
+        WORD.findAll(text.toLowerCase()).forEach { add(it.value) }
+    }
+
+    private fun add(word: String) {
+        nodes[word]?.let {
+            it.count++
+            return
+        }
+        if (word.length < MIN_WORD_LENGTH || nodes.size >= maxWords) {
+            return
+        }
+        val node = Node(word)
+        nodes[word] = node
+        sortedWords.add(word)
+        var parent = root ?: run {
+            root = node
+            return
+        }
+        while (true) {
+            val distance = distance(word, parent.word)
+            val child = parent.children[distance]
+            if (child == null) {
+                parent.children[distance] = node
+                return
+            }
+            parent = child
+        }
+    }
+
+    /**
+     * Returns the closest known word, preferring the more frequent one among equally close words.
+     * Words that are known, or are the beginning of a known word the user did not finish typing, are left alone.
+     */
+    private fun correction(word: String): String? {
+        if (word.length < MIN_WORD_LENGTH || word in nodes || sortedWords.ceiling(word)?.startsWith(word) == true) {
+            return null
+        }
+        val maxDistance = if (word.length <= SHORT_WORD_LENGTH) 1 else 2
+        var best: Node? = null
+        var bestDistance = maxDistance + 1
+        val pending = ArrayList<Node>()
+        root?.let { pending.add(it) }
+        while (pending.isNotEmpty()) {
+            val node = pending.removeAt(pending.size - 1)
+            val distance = distance(word, node.word)
+            val closer = distance < bestDistance
+            val moreFrequent = distance == bestDistance && best != null && node.count > best.count
+            if (closer || moreFrequent) {
+                best = node
+                bestDistance = distance
+            }
+            for ((childDistance, child) in node.children) {
+                if (childDistance in distance - maxDistance..distance + maxDistance) {
+                    pending.add(child)
+                }
+            }
+        }
+        return best?.word
+    }
+
+    /**
+     * Optimal string alignment distance between [first] and [second].
+     */
+    private fun distance(first: String, second: String): Int {
+        var previousRow = IntArray(second.length + 1)
+        var row = IntArray(second.length + 1) { it }
+        var nextRow = IntArray(second.length + 1)
+        for (i in 1..first.length) {
+            nextRow[0] = i
+            for (j in 1..second.length) {
+                val cost = if (first[i - 1] == second[j - 1]) 0 else 1
+                var value = minOf(row[j] + 1, nextRow[j - 1] + 1, row[j - 1] + cost)
+                if (i > 1 && j > 1 && first[i - 1] == second[j - 2] && first[i - 2] == second[j - 1]) {
+                    value = minOf(value, previousRow[j - 2] + 1)
+                }
+                nextRow[j] = value
+            }
+            val recycled = previousRow
+            previousRow = row
+            row = nextRow
+            nextRow = recycled
+        }
+        return row[second.length]
+    }
+
+    private class Node(val word: String) {
+        var count = 1
+        val children = HashMap<Int, Node>(4)
+    }
+}
@@ -0,0 +1,131 @@
+package me.scana.okgradle.data.index
+
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+
+/**
+ * Sorted table of distinct strings kept as UTF-8 in a [ByteBuffer], usually a slice of a memory-mapped file.
+ * Strings are ordered and compared as unsigned bytes, so lookups only decode the strings they return.
+ * Reads use absolute positions only and are safe to do from many threads.
+ */
+class StringTable private constructor(
+        private val offsets: ByteBuffer,
+        private val bytes: ByteBuffer
+) {
+
+    companion object {
+
+        /**
+         * Writes the distinct [strings] in table order and returns the index of every one of them.
+         */
+        fun write(strings: Collection<String>, output: DataOutputStream): Map<String, Int> {
+            val encoded = strings.distinct()
+                    .map { it to it.toByteArray(Charsets.UTF_8) }
+                    .sortedWith(Comparator { first, second -> compareBytes(first.second, second.second) })
+            output.writeInt(encoded.size)
+            var offset = 0
+            output.writeInt(offset)
+            encoded.forEach {
+                offset += it.second.size
+                output.writeInt(offset)
+            }
+            encoded.forEach { output.write(it.second) }
+            return encoded.withIndex().associate { it.value.first to it.index }
+        }
+
+        /**
+         * Reads a table written by [write], starting at the position of [buffer] and moving it past the table.
+         */
+        fun read(buffer: ByteBuffer): StringTable {
+            val size = buffer.int
+            val offsets = buffer.nextSlice((size + 1) * Int.SIZE_BYTES)
+            return StringTable(offsets, buffer.nextSlice(offsets.getInt(size * Int.SIZE_BYTES)))
+        }
+
+        private fun compareBytes(first: ByteArray, second: ByteArray): Int {
+            for (index in 0 until minOf(first.size, second.size)) {
+                val result = (first[index].toInt() and 0xff) - (second[index].toInt() and 0xff)
+                if (result != 0) {
+                    return result
+                }
+            }
+            return first.size - second.size
+        }
+    }
+
+    val size: Int = offsets.limit() / Int.SIZE_BYTES - 1
+
+    operator fun get(index: Int): String {
+        val start = start(index)
+        val value = ByteArray(end(index) - start)
+        bytes.duplicate().apply { position(start) }.get(value)
+        return String(value, Charsets.UTF_8)
+    }
+
+    /**
+     * Returns the index of [value] or -1 when the table does not contain it.
+     */
+    fun indexOf(value: String): Int {
+        val key = value.toByteArray(Charsets.UTF_8)
+        val index = firstIndex { compare(it, key, key.size) >= 0 }
+        return if (index < size && compare(index, key, Int.MAX_VALUE) == 0) index else -1
+    }
+
+    /**
+     * Returns indices of all strings starting with [prefix], which are next to each other in a sorted table.
+     */
+    fun prefixRange(prefix: String): IntRange {
+        val key = prefix.toByteArray(Charsets.UTF_8)
+        val first = firstIndex { compare(it, key, key.size) >= 0 }
+        val last = firstIndex { compare(it, key, key.size) > 0 }
+        return first until last
+    }
+
+    /**
+     * Compares at most [length] leading bytes of the string at [index] with [key].
+     */
+    private fun compare(index: Int, key: ByteArray, length: Int): Int {
+        val start = start(index)
+        val stringLength = end(index) - start
+        val compared = minOf(stringLength, key.size, length)
+        for (position in 0 until compared) {
+            val result = (bytes.get(start + position).toInt() and 0xff) - (key[position].toInt() and 0xff)
+            if (result != 0) {
+                return result
+            }
+        }
+        return minOf(stringLength, length) - minOf(key.size, length)
+    }
+
+    /**
+     * Binary search for the first index at which [predicate] holds, given it holds for every index after it.
+     */
+    private inline fun firstIndex(predicate: (Int) -> Boolean): Int {
+        var low = 0
+        var high = size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (predicate(middle)) {
+                high = middle
+            } else {
+                low = middle + 1
+            }
+        }
+        return low
+    }
+
+    private fun start(index: Int) = offsets.getInt(index * Int.SIZE_BYTES)
+
+    private fun end(index: Int) = offsets.getInt((index + 1) * Int.SIZE_BYTES)
+}
+
+/**
+ * Returns the next [length] bytes of this buffer as a separate buffer and moves the position past them.
+ */
+internal fun ByteBuffer.nextSlice(length: Int): ByteBuffer {
+    val slice = duplicate()
+    slice.limit(position() + length)
+    val result = slice.slice()
+    position(position() + length)
+    return result
+}
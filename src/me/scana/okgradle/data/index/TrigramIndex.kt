@@ -0,0 +1,214 @@
+package me.scana.okgradle.data.index
+
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+import java.util.BitSet
+
+/**
+ * Substring index over lowercase texts, one per entry id. Every three-character window of a text
+ * (the last ones padded with [END]) points to the sorted ids of texts containing it, stored as
+ * variable-length deltas. A query token is looked up by intersecting the lists of its trigrams,
+ * so only entries sharing all of them are ever compared with the token.
+ */
+class TrigramIndex private constructor(
+        private val trigrams: StringTable,
+        private val postingOffsets: ByteBuffer,
+        private val postings: ByteBuffer
+) {
+
+    companion object {
+        private const val GRAM_LENGTH = 3
+        private const val END = '\u0000'
+        private const val MAX_SIMILAR_MISSES = 4
+
+        val EMPTY: TrigramIndex = build(0) { "" }
+
+        /**
+         * Writes an index over [texts], the id of every entry being its position in the sequence.
+         */
+        fun write(texts: Sequence<String>, output: DataOutputStream) {
+            val entriesByTrigram = HashMap<String, PostingWriter>()
+            texts.forEachIndexed { id, text ->
+                trigramsOf(text.toLowerCase() + END + END).forEach {
+                    entriesByTrigram.getOrPut(it) { PostingWriter() }.add(id)
+                }
+            }
+            val indices = StringTable.write(entriesByTrigram.keys, output)
+            val trigrams = arrayOfNulls<String>(indices.size)
+            indices.forEach { (trigram, index) -> trigrams[index] = trigram }
+            var offset = 0
+            output.writeInt(offset)
+            trigrams.forEach {
+                offset += entriesByTrigram.getValue(it!!).size
+                output.writeInt(offset)
+            }
+            trigrams.forEach { entriesByTrigram.getValue(it!!).writeTo(output) }
+        }
+
+        /**
+         * Reads an index written by [write], starting at the position of [buffer] and moving it past the index.
+         */
+        fun read(buffer: ByteBuffer): TrigramIndex {
+            val trigrams = StringTable.read(buffer)
+            val postingOffsets = buffer.nextSlice((trigrams.size + 1) * Int.SIZE_BYTES)
+            val postings = buffer.nextSlice(postingOffsets.getInt(trigrams.size * Int.SIZE_BYTES))
+            return TrigramIndex(trigrams, postingOffsets, postings)
+        }
+
+        /**
+         * Builds an index kept on the heap, for entries that are not stored in a file.
+         */
+        fun build(count: Int, textOf: (Int) -> String): TrigramIndex {
+            val bytes = ByteArrayOutputStream()
+            DataOutputStream(bytes).use { write((0 until count).asSequence().map(textOf), it) }
+            return read(ByteBuffer.wrap(bytes.toByteArray()))
+        }
+
+        fun queryTokens(query: String): List<String> = query.toLowerCase()
+                .split(' ', '\t')
+                .filter { it.isNotEmpty() }
+                .distinct()
+
+        private fun trigramsOf(text: String): Set<String> {
+            val trigrams = HashSet<String>()
+            for (start in 0..text.length - GRAM_LENGTH) {
+                trigrams.add(text.substring(start, start + GRAM_LENGTH))
+            }
+            return trigrams
+        }
+    }
+
+    /**
+     * Returns ids, in ascending order, of entries whose text contains every whitespace-separated token of [query].
+     */
+    fun find(query: String, textOf: (Int) -> String): IntArray {
+        val candidates = candidates(query)
+        if (queryTokens(query).all { it.length <= GRAM_LENGTH }) {
+            return candidates
+        }
+        val artifactQuery = ArtifactQuery(query)
+        return candidates.filter { artifactQuery.matches(textOf(it).toLowerCase()) }.toIntArray()
+    }
+
+    /**
+     * Returns ids, in ascending order, of entries that contain all trigrams of every token of [query].
+     * Tokens up to three characters long match exactly, longer ones can still be spread over the text,
+     * so callers that cannot afford checking every candidate check only the ones they use.
+     */
+    fun candidates(query: String): IntArray {
+        val tokens = queryTokens(query)
+        if (tokens.isEmpty()) {
+            return IntArray(0)
+        }
+        var result: BitSet? = null
+        for (token in tokens.sortedByDescending { it.length }) {
+            val matching = when {
+                token.length < GRAM_LENGTH -> entriesWithTrigramsStartingWith(token)
+                else -> entriesWithAllTrigrams(token, result)
+            }
+            result = result?.apply { and(matching) } ?: matching
+            if (result.isEmpty) {
+                break
+            }
+        }
+        return result?.stream()?.toArray() ?: IntArray(0)
+    }
+
+    /**
+     * Returns ids of entries sharing most trigrams with the longest token of [query], most similar first.
+     * Meant for queries with a typo, after [find] came back empty.
+     */
+    fun findSimilar(query: String, limit: Int): IntArray {
+        val token = queryTokens(query).maxBy { it.length } ?: return IntArray(0)
+        val queryTrigrams = trigramsOf(token).mapNotNull { trigrams.indexOf(it).takeIf { index -> index >= 0 } }
+        val required = maxOf(2, trigramsOf(token).size - MAX_SIMILAR_MISSES)
+        if (queryTrigrams.size < required) {
+            return IntArray(0)
+        }
+        val hits = HashMap<Int, Int>()
+        queryTrigrams.forEach { trigram -> forEachPosting(trigram) { hits[it] = (hits[it] ?: 0) + 1 } }
+        return hits.entries.asSequence()
+                .filter { it.value >= required }
+                .sortedWith(compareByDescending<Map.Entry<Int, Int>> { it.value }.thenBy { it.key })
+                .take(limit)
+                .map { it.key }
+                .toList()
+                .toIntArray()
+    }
+
+    private fun entriesWithTrigramsStartingWith(prefix: String): BitSet {
+        val entries = BitSet()
+        for (trigram in trigrams.prefixRange(prefix)) {
+            forEachPosting(trigram) { entries.set(it) }
+        }
+        return entries
+    }
+
+    /**
+     * Intersects posting lists of the trigrams of [token], shortest first.
+     * Entries outside of [candidates] are skipped, as they are dropped by the caller anyway.
+     */
+    private fun entriesWithAllTrigrams(token: String, candidates: BitSet?): BitSet {
+        val lists = trigramsOf(token).map { trigrams.indexOf(it) }
+        if (lists.any { it < 0 }) {
+            return BitSet()
+        }
+        val sorted = lists.sortedBy { postingSize(it) }
+        var entries = BitSet()
+        forEachPosting(sorted.first()) { if (candidates == null || candidates[it]) entries.set(it) }
+        for (trigram in sorted.drop(1)) {
+            if (entries.isEmpty) {
+                break
+            }
+            val next = BitSet()
+            forEachPosting(trigram) { if (entries[it]) next.set(it) }
+            entries = next
+        }
+        return entries
+    }
+
+    private fun postingSize(trigram: Int) = postingOffsets.getInt((trigram + 1) * Int.SIZE_BYTES) - postingOffsets.getInt(trigram * Int.SIZE_BYTES)
+
+    private inline fun forEachPosting(trigram: Int, action: (Int) -> Unit) {
+        var position = postingOffsets.getInt(trigram * Int.SIZE_BYTES)
+        val end = postingOffsets.getInt((trigram + 1) * Int.SIZE_BYTES)
+        var id = 0
+        while (position < end) {
+            var delta = 0
+            var shift = 0
+            do {
+                val byte = postings.get(position++).toInt()
+                delta = delta or ((byte and 0x7f) shl shift)
+                shift += 7
+            } while (byte and 0x80 != 0)
+            id += delta
+            action(id)
+        }
+    }
+
+    /**
+     * Collects ascending ids as variable-length deltas, seven bits per byte.
+     */
+    private class PostingWriter {
+        private val bytes = ByteArrayOutputStream(8)
+        private var last = 0
+
+        val size: Int
+            get() = bytes.size()
+
+        fun add(id: Int) {
+            var delta = id - last
+            last = id
+            while (delta >= 0x80) {
+                bytes.write(delta and 0x7f or 0x80)
+                delta = delta ushr 7
+            }
+            bytes.write(delta)
+        }
+
+        fun writeTo(output: DataOutputStream) {
+            bytes.writeTo(output)
+        }
+    }
+}
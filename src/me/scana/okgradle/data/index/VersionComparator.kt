@@ -0,0 +1,50 @@
+package me.scana.okgradle.data.index
+
+/**
+ * Orders version strings the way Maven mostly does: numeric parts compare as numbers,
+ * pre-release qualifiers such as `alpha` or `rc` come before the release and `1.0.1` comes after `1.0`.
+ */
+object VersionComparator : Comparator<String> {
+
+    private val PARTS = "\\d+|[a-zA-Z]+".toRegex()
+
+    private val QUALIFIERS = listOf("alpha", "a", "beta", "b", "milestone", "m", "rc", "cr", "snapshot", "", "ga", "final", "release", "sp")
+    private val RELEASE_RANK = QUALIFIERS.indexOf("")
+
+    override fun compare(first: String, second: String): Int {
+        val firstParts = PARTS.findAll(first).map { it.value }.toList()
+        val secondParts = PARTS.findAll(second).map { it.value }.toList()
+        for (index in 0 until maxOf(firstParts.size, secondParts.size)) {
+            val result = compareParts(firstParts.getOrNull(index), secondParts.getOrNull(index))
+            if (result != 0) {
+                return result
+            }
+        }
+        return 0
+    }
+
+    private fun compareParts(first: String?, second: String?): Int {
+        val firstNumber = first?.toBigIntegerOrNull()
+        val secondNumber = second?.toBigIntegerOrNull()
+        return when {
+            firstNumber != null && secondNumber != null -> firstNumber.compareTo(secondNumber)
+            firstNumber != null -> 1
+            secondNumber != null -> -1
+            else -> compareQualifiers(first ?: "", second ?: "")
+        }
+    }
+
+    private fun compareQualifiers(first: String, second: String): Int {
+        val firstRank = qualifierRank(first)
+        val secondRank = qualifierRank(second)
+        return when {
+            firstRank != secondRank -> firstRank.compareTo(secondRank)
+            else -> first.compareTo(second, ignoreCase = true)
+        }
+    }
+
+    private fun qualifierRank(qualifier: String): Int {
+        val rank = QUALIFIERS.indexOf(qualifier.toLowerCase())
+        return if (rank >= 0) rank else RELEASE_RANK + QUALIFIERS.size
+    }
+}
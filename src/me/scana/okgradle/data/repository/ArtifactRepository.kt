@@ -3,5 +3,47 @@ package me.scana.okgradle.data.repository
 import io.reactivex.Single
 
 interface ArtifactRepository {
+
+    /**
+     * Shorter queries are not sent to this repository at all.
+     */
+    val minQueryLength: Int
+        get() = 1
+
+    /**
+     * False for repositories whose answers change while the IDE is running and are cheap to compute again,
+     * so their results are never kept in the search cache.
+     */
+    val cachesResults: Boolean
+        get() = true
+
+    /**
+     * True for repositories that answer with the versions the project already uses, which must be shown as they are
+     * rather than replaced with newer versions found out in the background.
+     */
+    val showsUsedVersions: Boolean
+        get() = false
+
     fun search(query: String): Single<SearchResult>
+
+    /**
+     * Returns true when [search] can answer [query] without going over the network.
+     */
+    fun answersLocally(query: String): Boolean = false
+
+    /**
+     * Narrows down [result] of an earlier, shorter query to what [search] would return for [query],
+     * or returns null when that cannot be done without asking the backend again.
+     */
+    fun refine(result: SearchResult.Success, query: String): SearchResult.Success? = null
+
+    /**
+     * Returns artifacts this repository knows about without searching, for learning the words users look for.
+     */
+    fun knownArtifacts(): List<Artifact> = emptyList()
+
+    /**
+     * Opens connections and initializes parsers ahead of the first [search].
+     */
+    fun warmUp() {}
 }
\ No newline at end of file
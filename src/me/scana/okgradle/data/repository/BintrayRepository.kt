@@ -1,28 +1,43 @@
 package me.scana.okgradle.data.repository
 
 import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
 import io.reactivex.Single
-import me.scana.okgradle.util.fromJson
+import me.scana.okgradle.util.forEachProperty
+import me.scana.okgradle.util.nextFirstString
 import okhttp3.HttpUrl
 import okhttp3.HttpUrl.Companion.toHttpUrl
 import okhttp3.Request
+import java.io.StringReader
 
-class BintrayRepository(private val networkClient: NetworkClient, private val gson: Gson) : ArtifactRepository {
+class BintrayRepository(
+        private val networkClient: NetworkClient,
+        private val gson: Gson,
+        private val maxResults: Int = DEFAULT_MAX_RESULTS
+) : ArtifactRepository {
 
     companion object {
         val BINTRAY_URL: HttpUrl = "https://api.bintray.com/search/packages/maven".toHttpUrl()
+        const val DEFAULT_MAX_RESULTS = 100
+        const val MIN_QUERY_LENGTH = 3
     }
 
+    override val minQueryLength = MIN_QUERY_LENGTH
+
     override fun search(query: String): Single<SearchResult> {
-        return Single.create {
-            val result = when {
+        return networkClient.cancellable {
+            when {
                 query.isEmpty() -> SearchResult.Success()
                 else -> findArtifacts(query)
             }
-            it.onSuccess(result)
         }
     }
 
+    override fun warmUp() {
+        networkClient.preconnect(BINTRAY_URL)
+        readArtifacts(gson.newJsonReader(StringReader("[]")))
+    }
+
     private fun findArtifacts(query: String): SearchResult {
         val url = BINTRAY_URL.newBuilder()
                 .addQueryParameter("a", "*$query*")
@@ -35,11 +50,7 @@ class BintrayRepository(private val networkClient: NetworkClient, private val gs
                 .build()
 
         val response = networkClient.execute(request) {
-            val result = gson.fromJson<List<BintrayResult>>(this.charStream())
-            result.map {
-                val (groupId, artifactId) = it.name.split(":".toRegex(), 2)
-                Artifact(groupId, artifactId, it.versions.first())
-            }
+            readArtifacts(gson.newJsonReader(this.charStream()))
         }
 
         return when(response) {
@@ -48,4 +59,27 @@ class BintrayRepository(private val networkClient: NetworkClient, private val gs
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Reads packages one by one, stopping once [maxResults] artifacts are found.
+     */
+    private fun readArtifacts(reader: JsonReader): List<Artifact> {
+        val artifacts = mutableListOf<Artifact>()
+        reader.beginArray()
+        while (reader.hasNext() && artifacts.size < maxResults) {
+            var name: String? = null
+            var version: String? = null
+            reader.forEachProperty {
+                when (it) {
+                    "name" -> name = reader.nextString()
+                    "versions" -> version = reader.nextFirstString()
+                    else -> reader.skipValue()
+                }
+            }
+            val coordinates = name?.split(":".toRegex(), 2)
+            if (coordinates?.size == 2 && version != null) {
+                artifacts.add(Artifact(coordinates[0], coordinates[1], version!!))
+            }
+        }
+        return artifacts
+    }
+}
@@ -0,0 +1,55 @@
+package me.scana.okgradle.data.repository
+
+import okhttp3.Call
+
+/**
+ * HTTP calls started by one search, so that they can be cancelled together once
+ * the search is no longer needed. Calls are attributed to the scope that [run]s on the current thread.
+ */
+class CallScope {
+
+    companion object {
+        private val current = ThreadLocal<CallScope?>()
+
+        fun current(): CallScope? = current.get()
+    }
+
+    private val calls = mutableSetOf<Call>()
+    private var cancelled = false
+
+    fun <T> run(block: () -> T): T {
+        val previous = current.get()
+        current.set(this)
+        try {
+            return block()
+        } finally {
+            current.set(previous)
+        }
+    }
+
+    @Synchronized
+    fun register(call: Call) {
+        if (cancelled) {
+            call.cancel()
+        } else {
+            calls.add(call)
+        }
+    }
+
+    @Synchronized
+    fun finished(call: Call) {
+        calls.remove(call)
+    }
+
+    /**
+     * Cancels every call that has not finished yet and returns how many there were.
+     */
+    @Synchronized
+    fun cancel(): Int {
+        cancelled = true
+        val inFlight = calls.size
+        calls.forEach { it.cancel() }
+        calls.clear()
+        return inFlight
+    }
+}
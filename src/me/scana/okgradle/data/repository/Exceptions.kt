@@ -12,4 +12,8 @@ class HttpException(
 
 class ResponseParseException(
         throwable: Throwable
-) : Exception(throwable)
\ No newline at end of file
+) : Exception(throwable)
+
+class SearchTimeoutException(
+        deadlineInMillis: Long
+) : Exception("no response within $deadlineInMillis ms")
\ No newline at end of file
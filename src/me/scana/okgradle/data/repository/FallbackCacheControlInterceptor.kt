@@ -0,0 +1,24 @@
+package me.scana.okgradle.data.repository
+
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Network interceptor making responses cacheable for [maxAgeInSeconds] when the server
+ * does not say anything about caching on its own.
+ */
+class FallbackCacheControlInterceptor(private val maxAgeInSeconds: Int) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val response = chain.proceed(chain.request())
+        if (!response.isSuccessful || chain.request().method != "GET") {
+            return response
+        }
+        if (response.header("Cache-Control") != null || response.header("Expires") != null) {
+            return response
+        }
+        return response.newBuilder()
+                .header("Cache-Control", "max-age=$maxAgeInSeconds")
+                .build()
+    }
+}
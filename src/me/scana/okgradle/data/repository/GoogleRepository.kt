@@ -1,74 +1,91 @@
 package me.scana.okgradle.data.repository
 
 import io.reactivex.Single
-import okhttp3.HttpUrl
-import okhttp3.HttpUrl.Companion.toHttpUrl
-import okhttp3.Request
-import javax.xml.stream.XMLInputFactory
+import me.scana.okgradle.data.index.ArtifactQuery
+import me.scana.okgradle.data.index.GoogleMavenIndex
+import me.scana.okgradle.data.index.TrigramIndex
 
-class GoogleRepository(private val networkClient: NetworkClient) : ArtifactRepository {
+class GoogleRepository(
+        private val networkClient: NetworkClient,
+        private val index: GoogleMavenIndex? = null
+) : ArtifactRepository {
 
-    private val xmlInputFactory = XMLInputFactory.newInstance()
+    private val metadataResolver = MavenMetadataResolver(networkClient, GOOGLE_MAVEN_URL)
 
     override fun search(query: String): Single<SearchResult> {
-        return Single.create {
-            val result = when {
+        return networkClient.cancellable {
+            when {
                 query.isEmpty() -> SearchResult.Success()
-                else -> findArtifacts(query)
+                else -> findIndexedArtifacts(query) ?: findArtifacts(query)
             }
-            it.onSuccess(result)
         }
     }
 
-    private fun findArtifacts(query: String): SearchResult {
-        val requestedArtifacts = ARTIFACT_NAMES.filter { it.contains(query) }
-        requestedArtifacts.firstOrNull()?.let {
-            val version = getLatestVersion(it)
-            return SearchResult.Success(
-                    requestedArtifacts.map {
-                        val (groupId, name) = it.split(":".toRegex(), 2)
-                        Artifact(groupId, name, version)
-                    }
-            )
+    override fun answersLocally(query: String) = index?.isLoaded == true
+
+    override fun knownArtifacts(): List<Artifact> {
+        return index?.artifacts()?.takeIf { it.isNotEmpty() } ?: ARTIFACT_NAMES.map {
+            val (groupId, name) = it.split(":".toRegex(), 2)
+            Artifact(groupId, name, "+")
         }
-        return SearchResult.Success()
     }
 
-    private fun getLatestVersion(artifactId: String): String {
-        val path = artifactId
-                .replace('.', '/')
-                .replace(':', '/')
-
-        val url = GOOGLE_MAVEN_URL.newBuilder()
-                .addPathSegment(path)
-                .addPathSegment(MAVEN_METADATA)
-                .build()
+    /**
+     * Returns true when artifacts of [groupId] are published to Google's Maven repository.
+     */
+    fun hostsGroup(groupId: String): Boolean {
+        return index?.takeIf { it.isLoaded }?.containsGroup(groupId) ?: groupId in ARTIFACT_GROUPS
+    }
 
-        val request = Request.Builder()
-                .url(url)
-                .build()
+    override fun warmUp() {
+        networkClient.preconnect(GOOGLE_MAVEN_URL)
+        index?.refreshIfStale()
+        metadataResolver.warmUp()
+    }
 
-        val response = networkClient.execute(request) {
-            val xmlEventReader = xmlInputFactory.createXMLEventReader(this.charStream())
-            while (xmlEventReader.hasNext()) {
-                val event = xmlEventReader.nextEvent()
-                if (event.isStartElement && event.asStartElement().name.localPart == MAVEN_METADATA_VERSION) {
-                    return@execute xmlEventReader.elementText
-                }
-            }
-            return@execute "+"
+    override fun refine(result: SearchResult.Success, query: String): SearchResult.Success? {
+        if (result.artifacts.size >= MAX_INDEXED_RESULTS) {
+            return null
         }
-        return when(response) {
-            is NetworkResult.Failure -> "+"
-            is NetworkResult.Success -> response.data
+        val artifactQuery = ArtifactQuery(query)
+        val artifacts = result.artifacts.filter { artifactQuery.matches(it) }
+        if (artifacts.isEmpty()) {
+            // the index answers with similar names when nothing matches, which only a new search can find
+            return null
         }
+        return SearchResult.Success(artifacts)
+    }
+
+    private fun findIndexedArtifacts(query: String): SearchResult? {
+        index?.refreshIfStale()
+        return index?.search(query, MAX_INDEXED_RESULTS)?.let { SearchResult.Success(it) }
+    }
+
+    private fun findArtifacts(query: String): SearchResult {
+        val requestedArtifacts = ARTIFACT_NAME_INDEX.find(query) { ARTIFACT_NAMES[it] }.map { ARTIFACT_NAMES[it] }
+        val versions = metadataResolver.resolve(requestedArtifacts.take(MAX_RESOLVED_VERSIONS))
+        return SearchResult.Success(
+                requestedArtifacts.map {
+                    val (groupId, name) = it.split(":".toRegex(), 2)
+                    Artifact(groupId, name, versions[it] ?: metadataResolver.cachedVersion(it) ?: "+")
+                }
+        )
     }
 
     companion object {
-        val GOOGLE_MAVEN_URL = "https://dl.google.com/dl/android/maven2/".toHttpUrl()
+        val GOOGLE_MAVEN_URL = GoogleMavenIndex.GOOGLE_MAVEN_URL
+
+        const val MAX_INDEXED_RESULTS = 100
+
+        /**
+         * Most matches of one search whose versions are fetched without the index. The others show versions resolved
+         * by earlier, narrower searches, or none.
+         */
+        const val MAX_RESOLVED_VERSIONS = 20
+
+        private val ARTIFACT_GROUPS by lazy { ARTIFACT_NAMES.mapTo(HashSet()) { it.substringBefore(':') } }
 
-        const val MAVEN_METADATA = "maven-metadata.xml"
-        const val MAVEN_METADATA_VERSION = "release"
+        private val ARTIFACT_NAME_INDEX by lazy { TrigramIndex.build(ARTIFACT_NAMES.size) { ARTIFACT_NAMES[it] } }
 
         val ARTIFACT_NAMES = listOf(
                 "com.android.support.constraint:constraint-layout-solver",
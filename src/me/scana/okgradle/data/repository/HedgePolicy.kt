@@ -0,0 +1,36 @@
+package me.scana.okgradle.data.repository
+
+import java.util.ArrayDeque
+
+/**
+ * Keeps a window of recent response times per host and tells how long [NetworkClient]
+ * should wait for a GET before sending the same request a second time.
+ */
+class HedgePolicy(
+        private val percentile: Double = 0.95,
+        private val minSamples: Int = 10,
+        private val windowSize: Int = 50
+) {
+
+    private val samples = mutableMapOf<String, ArrayDeque<Long>>()
+
+    @Synchronized
+    fun record(host: String, latencyInMillis: Long) {
+        val window = samples.getOrPut(host) { ArrayDeque() }
+        if (window.size == windowSize) {
+            window.removeFirst()
+        }
+        window.addLast(latencyInMillis)
+    }
+
+    @Synchronized
+    fun hedgeDelayInMillis(host: String): Long? {
+        val window = samples[host] ?: return null
+        if (window.size < minSamples) {
+            return null
+        }
+        val sorted = window.sorted()
+        val index = Math.ceil(percentile * sorted.size).toInt() - 1
+        return sorted[index.coerceIn(0, sorted.size - 1)]
+    }
+}
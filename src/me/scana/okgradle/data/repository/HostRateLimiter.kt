@@ -0,0 +1,26 @@
+package me.scana.okgradle.data.repository
+
+/**
+ * Spaces out requests to the same host by at least [minIntervalInMillis], blocking the calling thread
+ * until the host's next slot. Meant for background jobs, never for searches the user waits for.
+ */
+class HostRateLimiter(
+        private val minIntervalInMillis: Long,
+        private val clock: () -> Long = System::currentTimeMillis,
+        private val sleep: (Long) -> Unit = Thread::sleep
+) {
+
+    private val nextSlots = HashMap<String, Long>()
+
+    fun acquire(host: String) {
+        val waitInMillis = synchronized(this) {
+            val now = clock()
+            val slot = maxOf(now, nextSlots[host] ?: now)
+            nextSlots[host] = slot + minIntervalInMillis
+            slot - now
+        }
+        if (waitInMillis > 0) {
+            sleep(waitInMillis)
+        }
+    }
+}
@@ -1,28 +1,42 @@
 package me.scana.okgradle.data.repository
 
 import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
 import io.reactivex.Single
-import me.scana.okgradle.util.fromJson
+import me.scana.okgradle.util.nextFirstString
 import okhttp3.HttpUrl
 import okhttp3.HttpUrl.Companion.toHttpUrl
 import okhttp3.Request
+import java.io.StringReader
 
-class JitPackRepository(private val networkClient: NetworkClient, private val gson: Gson) : ArtifactRepository {
+class JitPackRepository(
+        private val networkClient: NetworkClient,
+        private val gson: Gson,
+        private val maxResults: Int = DEFAULT_MAX_RESULTS
+) : ArtifactRepository {
 
     companion object {
         val JITPACK_URL: HttpUrl = "https://jitpack.io/api/search".toHttpUrl()
+        const val DEFAULT_MAX_RESULTS = 100
+        const val MIN_QUERY_LENGTH = 2
     }
 
+    override val minQueryLength = MIN_QUERY_LENGTH
+
     override fun search(query: String): Single<SearchResult> {
-        return Single.create {
-            val result = when {
+        return networkClient.cancellable {
+            when {
                 query.isEmpty() -> SearchResult.Success()
                 else -> findArtifacts(query)
             }
-            it.onSuccess(result)
         }
     }
 
+    override fun warmUp() {
+        networkClient.preconnect(JITPACK_URL)
+        readArtifacts(gson.newJsonReader(StringReader("{}")))
+    }
+
     private fun findArtifacts(query: String): SearchResult {
         val url = JITPACK_URL.newBuilder()
                 .addQueryParameter("q", query)
@@ -34,11 +48,7 @@ class JitPackRepository(private val networkClient: NetworkClient, private val gs
                 .build()
 
         val response = networkClient.execute(request) {
-            val jitPackResult = gson.fromJson<Map<String, List<String>>>(this.charStream())
-            return@execute jitPackResult.entries.map {
-                val (groupId, name) = it.key.split(":".toRegex(), 2)
-                Artifact(groupId, name, it.value[0])
-            }
+            readArtifacts(gson.newJsonReader(this.charStream()))
         }
 
         return when(response) {
@@ -47,4 +57,19 @@ class JitPackRepository(private val networkClient: NetworkClient, private val gs
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Reads `"groupId:name": [versions]` entries one by one, stopping once [maxResults] artifacts are found.
+     */
+    private fun readArtifacts(reader: JsonReader): List<Artifact> {
+        val artifacts = mutableListOf<Artifact>()
+        reader.beginObject()
+        while (reader.hasNext() && artifacts.size < maxResults) {
+            val coordinates = reader.nextName().split(":".toRegex(), 2)
+            val version = reader.nextFirstString()
+            if (coordinates.size == 2 && version != null) {
+                artifacts.add(Artifact(coordinates[0], coordinates[1], version))
+            }
+        }
+        return artifacts
+    }
+}
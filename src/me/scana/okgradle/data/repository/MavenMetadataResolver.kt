@@ -0,0 +1,117 @@
+package me.scana.okgradle.data.repository
+
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import okhttp3.HttpUrl
+import okhttp3.Request
+import java.io.Reader
+import java.io.StringReader
+import java.util.Collections
+import javax.xml.stream.XMLInputFactory
+
+/**
+ * Resolves latest versions from `maven-metadata.xml` files of a Maven repository at [baseUrl].
+ * Files are fetched concurrently and revalidated with their ETag or Last-Modified on later calls.
+ */
+class MavenMetadataResolver(
+        private val networkClient: NetworkClient,
+        private val baseUrl: HttpUrl,
+        private val maxConcurrency: Int = DEFAULT_MAX_CONCURRENCY,
+        private val scheduler: Scheduler = Schedulers.io()
+) {
+
+    companion object {
+        const val MAVEN_METADATA = "maven-metadata.xml"
+        const val MAVEN_METADATA_VERSION = "release"
+        const val DEFAULT_MAX_CONCURRENCY = 6
+
+        private const val MAX_CACHED_COORDINATES = 1000
+    }
+
+    private val xmlInputFactory = XMLInputFactory.newInstance()
+
+    private val cache: MutableMap<String, CachedVersion> = Collections.synchronizedMap(
+            object : LinkedHashMap<String, CachedVersion>(16, 0.75f, true) {
+                override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, CachedVersion>) =
+                        size > MAX_CACHED_COORDINATES
+            }
+    )
+
+    /**
+     * Returns latest versions of the given `groupId:artifactId` [coordinates].
+     * Coordinates that could not be resolved are missing from the result.
+     */
+    fun resolve(coordinates: Collection<String>): Map<String, String> {
+        val scope = CallScope.current() ?: CallScope()
+        return try {
+            Observable.fromIterable(coordinates.distinct())
+                    .flatMap({ coordinate ->
+                        Observable.fromCallable { coordinate to scope.run { resolve(coordinate) } }
+                                .subscribeOn(scheduler)
+                    }, maxConcurrency)
+                    .filter { it.second != null }
+                    .toMap({ it.first }, { it.second!! })
+                    .blockingGet()
+        } catch (exception: RuntimeException) {
+            if (exception.cause !is InterruptedException) {
+                throw exception
+            }
+            // interrupted because the search was abandoned
+            Thread.currentThread().interrupt()
+            emptyMap()
+        }
+    }
+
+    /**
+     * Returns the version of [coordinate] resolved by an earlier call, without a request.
+     */
+    fun cachedVersion(coordinate: String): String? = cache[coordinate]?.version
+
+    fun warmUp() {
+        parseRelease(StringReader("<metadata><$MAVEN_METADATA_VERSION/></metadata>"))
+    }
+
+    private fun resolve(coordinate: String): String? {
+        val cached = cache[coordinate]
+        val response = networkClient.revalidate(request(coordinate), cached?.validators ?: Validators.NONE) {
+            parseRelease(charStream())
+        }
+        return when (response) {
+            is NetworkResult.Success -> {
+                val version = response.data.data ?: return cached?.version
+                cache[coordinate] = CachedVersion(version, response.data.validators)
+                version
+            }
+            is NetworkResult.Failure -> cached?.version
+        }
+    }
+
+    private fun request(coordinate: String): Request {
+        val path = coordinate
+                .replace('.', '/')
+                .replace(':', '/')
+
+        val url = baseUrl.newBuilder()
+                .addPathSegments(path)
+                .addPathSegment(MAVEN_METADATA)
+                .build()
+
+        return Request.Builder()
+                .url(url)
+                .build()
+    }
+
+    private fun parseRelease(reader: Reader): String {
+        val xmlEventReader = xmlInputFactory.createXMLEventReader(reader)
+        while (xmlEventReader.hasNext()) {
+            val event = xmlEventReader.nextEvent()
+            if (event.isStartElement && event.asStartElement().name.localPart == MAVEN_METADATA_VERSION) {
+                return xmlEventReader.elementText
+            }
+        }
+        throw IllegalStateException("no $MAVEN_METADATA_VERSION version in $MAVEN_METADATA")
+    }
+
+    private class CachedVersion(val version: String, val validators: Validators)
+}
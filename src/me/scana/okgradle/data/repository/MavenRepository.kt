@@ -1,27 +1,54 @@
 package me.scana.okgradle.data.repository
 
 import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
 import io.reactivex.Single
+import me.scana.okgradle.data.index.MavenCentralIndex
+import me.scana.okgradle.util.forEachProperty
+import me.scana.okgradle.util.nextFirstString
 import okhttp3.HttpUrl
 import okhttp3.HttpUrl.Companion.toHttpUrl
 import okhttp3.Request
+import java.io.StringReader
 
-class MavenRepository(private val networkClient: NetworkClient, private val gson: Gson) : ArtifactRepository {
+class MavenRepository(
+        private val networkClient: NetworkClient,
+        private val gson: Gson,
+        private val maxResults: Int = DEFAULT_MAX_RESULTS,
+        private val index: MavenCentralIndex? = null
+) : ArtifactRepository {
 
     companion object {
         val MAVEN_URL: HttpUrl = "http://search.maven.org/solrsearch/select".toHttpUrl()
+        const val DEFAULT_MAX_RESULTS = 100
+        const val MIN_QUERY_LENGTH = 2
     }
 
+    override val minQueryLength = MIN_QUERY_LENGTH
+
     override fun search(query: String): Single<SearchResult> {
-        return Single.create {
-            val result = when {
+        return networkClient.cancellable {
+            when {
                 query.isEmpty() -> SearchResult.Success()
-                else -> artifactIdForName(query)
+                else -> findIndexedArtifacts(query) ?: artifactIdForName(query)
             }
-            it.onSuccess(result)
         }
     }
 
+    override fun answersLocally(query: String) = index?.isLoaded == true
+
+    override fun warmUp() {
+        index?.refreshIfStale()
+        networkClient.preconnect(MAVEN_URL)
+        readResult(gson.newJsonReader(StringReader("{}")))
+    }
+
+    private fun findIndexedArtifacts(query: String): SearchResult? {
+        index?.refreshIfStale()
+        return index?.search(query, maxResults)?.let { SearchResult.Success(it) }
+    }
+
     private fun artifactIdForName(name: String): SearchResult {
         val url = MAVEN_URL.newBuilder()
                 .addQueryParameter("q", name)
@@ -32,28 +59,88 @@ class MavenRepository(private val networkClient: NetworkClient, private val gson
                 .build()
 
         val response = networkClient.execute(request) {
-            val mavenResult = gson.fromJson(this.charStream(), MavenResult::class.java)
-            val suggestion = extractSuggestion(mavenResult.spellcheck)
-            val artifacts = extractArtifacts(mavenResult.response)
-            return@execute Pair(artifacts, suggestion)
+            readResult(gson.newJsonReader(this.charStream()))
         }
         return when(response) {
-            is NetworkResult.Success -> SearchResult.Success(response.data.first, response.data.second)
+            is NetworkResult.Success -> response.data
             is NetworkResult.Failure -> SearchResult.Error(response.throwable)
         }
     }
 
-    private fun extractArtifacts(response: Response): List<Artifact> {
-        if (response.docs.isEmpty()) {
-            return emptyList()
+    /**
+     * Reads found documents and the first spellcheck suggestion from a Solr response.
+     * Documents past [maxResults] and every other field are skipped without being decoded.
+     */
+    private fun readResult(reader: JsonReader): SearchResult.Success {
+        val artifacts = mutableListOf<Artifact>()
+        val releasedAt = HashMap<Artifact, Long>()
+        var suggestion: String? = null
+        reader.forEachProperty { property ->
+            when (property) {
+                "response" -> reader.forEachProperty {
+                    when (it) {
+                        "docs" -> readDocs(reader, artifacts, releasedAt)
+                        else -> reader.skipValue()
+                    }
+                }
+                "spellcheck" -> suggestion = readSuggestion(reader)
+                else -> reader.skipValue()
+            }
         }
-        return response.docs.map { Artifact(it.g, it.a, it.latestVersion) }
+        return SearchResult.Success(artifacts, suggestion, releasedAt)
     }
 
-    private fun extractSuggestion(spellcheck: Spellcheck): String? {
-        if (spellcheck.suggestions.isEmpty()) {
-            return null
+    private fun readDocs(reader: JsonReader, artifacts: MutableList<Artifact>, releasedAt: MutableMap<Artifact, Long>) {
+        reader.beginArray()
+        while (reader.hasNext()) {
+            if (artifacts.size >= maxResults) {
+                reader.skipValue()
+                continue
+            }
+            var groupId: String? = null
+            var artifactId: String? = null
+            var version: String? = null
+            var timestamp: Long? = null
+            reader.forEachProperty {
+                when (it) {
+                    "g" -> groupId = reader.nextString()
+                    "a" -> artifactId = reader.nextString()
+                    "latestVersion" -> version = reader.nextString()
+                    "timestamp" -> timestamp = reader.nextLong()
+                    else -> reader.skipValue()
+                }
+            }
+            if (groupId != null && artifactId != null && version != null) {
+                val artifact = Artifact(groupId!!, artifactId!!, version!!)
+                artifacts.add(artifact)
+                timestamp?.let { releasedAt[artifact] = it }
+            }
+        }
+        reader.endArray()
+    }
+
+    private fun readSuggestion(reader: JsonReader): String? {
+        var suggestion: String? = null
+        reader.forEachProperty {
+            if (it != "suggestions") {
+                reader.skipValue()
+                return@forEachProperty
+            }
+            reader.beginArray()
+            while (reader.hasNext()) {
+                if (suggestion == null && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.forEachProperty { name ->
+                        when (name) {
+                            "suggestion" -> suggestion = reader.nextFirstString()
+                            else -> reader.skipValue()
+                        }
+                    }
+                } else {
+                    reader.skipValue()
+                }
+            }
+            reader.endArray()
         }
-        return spellcheck.suggestions[0].suggestion[0]
+        return suggestion
     }
-}
\ No newline at end of file
+}
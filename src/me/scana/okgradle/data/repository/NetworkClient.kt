@@ -1,26 +1,273 @@
 package me.scana.okgradle.data.repository
 
+import io.reactivex.Single
+import okhttp3.CacheControl
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.HttpUrl
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.Response
 import okhttp3.ResponseBody
+import java.io.Closeable
 import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 
-class NetworkClient(private val okHttpClient: OkHttpClient) {
+class NetworkClient(
+        private val okHttpClient: OkHttpClient,
+        private val hedgePolicy: HedgePolicy? = null,
+        private val maxStaleInSeconds: Int = 0
+) {
+
+    private val revalidating = ConcurrentHashMap.newKeySet<HttpUrl>()
+    private val cancelledCalls = AtomicLong()
+
+    /**
+     * Number of calls cancelled because the search that started them was disposed.
+     */
+    val cancelledCallCount: Long
+        get() = cancelledCalls.get()
+
+    /**
+     * Runs [block] on subscription. Disposing the returned Single cancels
+     * the calls [block] still has in flight instead of letting them run to completion.
+     */
+    fun <T : Any> cancellable(block: () -> T): Single<T> = Single.create { emitter ->
+        val scope = CallScope()
+        emitter.setCancellable { cancelledCalls.addAndGet(scope.cancel().toLong()) }
+        val result = scope.run(block)
+        emitter.onSuccess(result)
+    }
 
     fun <T> execute(request: Request, parse: ResponseBody.() -> T): NetworkResult<T> {
+        CallTracker().use { tracker ->
+            try {
+                val response = call(request, tracker)
+                if (!response.isSuccessful) {
+                    response.close()
+                    return NetworkResult.Failure(HttpException(response.code, response.message))
+                }
+                return try {
+                    val result = response.body!!.use(parse)
+                    NetworkResult.Success(result)
+                } catch (exception: Exception) {
+                    NetworkResult.Failure(ResponseParseException(exception))
+                }
+            } catch (exception: IOException) {
+                return NetworkResult.Failure(exception)
+            }
+        }
+    }
+
+    /**
+     * Sends [request] as a conditional GET against a copy fetched earlier with [validators].
+     * The server answering 304 results in [Revalidated.data] being null.
+     */
+    fun <T> revalidate(request: Request, validators: Validators, parse: ResponseBody.() -> T): NetworkResult<Revalidated<T>> {
+        CallTracker().use { tracker ->
+            val conditionalRequest = request.newBuilder().apply {
+                validators.etag?.let { header("If-None-Match", it) }
+                validators.lastModified?.let { header("If-Modified-Since", it) }
+            }.build()
+            try {
+                val response = tracker.newCall(conditionalRequest).execute()
+                if (response.code == HTTP_NOT_MODIFIED) {
+                    response.close()
+                    return NetworkResult.Success(Revalidated(null, validators))
+                }
+                if (!response.isSuccessful) {
+                    response.close()
+                    return NetworkResult.Failure(HttpException(response.code, response.message))
+                }
+                val newValidators = Validators(response.header("ETag"), response.header("Last-Modified"))
+                return try {
+                    val result = response.body!!.use(parse)
+                    NetworkResult.Success(Revalidated(result, newValidators))
+                } catch (exception: Exception) {
+                    NetworkResult.Failure(ResponseParseException(exception))
+                }
+            } catch (exception: IOException) {
+                return NetworkResult.Failure(exception)
+            }
+        }
+    }
+
+    /**
+     * Sends a HEAD request to [url] in the background, leaving a ready connection in the pool.
+     */
+    fun preconnect(url: HttpUrl) {
+        val request = Request.Builder()
+                .url(url)
+                .head()
+                .build()
+        okHttpClient.newCall(request).enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) = response.close()
+
+            override fun onFailure(call: Call, e: IOException) {}
+        })
+    }
+
+    private fun call(request: Request, tracker: CallTracker): Response {
+        if (maxStaleInSeconds > 0 && request.method == "GET") {
+            cachedResponse(request, tracker)?.let { return it }
+        }
+        val host = request.url.host
+        val hedgeDelay = when (request.method) {
+            "GET" -> hedgePolicy?.hedgeDelayInMillis(host)
+            else -> null
+        }
+        val startTime = System.nanoTime()
+        val response = when (hedgeDelay) {
+            null -> tracker.newCall(request).execute()
+            else -> executeHedged(request, hedgeDelay, tracker)
+        }
+        hedgePolicy?.record(host, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime))
+        return response
+    }
+
+    /**
+     * Returns a cached response even if it expired no longer than [maxStaleInSeconds] ago.
+     * Expired responses are revalidated in the background, so the next call gets fresh data.
+     */
+    private fun cachedResponse(request: Request, tracker: CallTracker): Response? {
+        val cacheOnlyRequest = request.newBuilder()
+                .cacheControl(CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(maxStaleInSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build()
+        val response = tracker.newCall(cacheOnlyRequest).execute()
+        if (!response.isSuccessful) {
+            response.close()
+            return null
+        }
+        if (response.header("Warning")?.startsWith(STALE_WARNING) == true) {
+            revalidateInBackground(request)
+        }
+        return response
+    }
+
+    private fun revalidateInBackground(request: Request) {
+        if (!revalidating.add(request.url)) {
+            return
+        }
+        okHttpClient.newCall(request).enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                response.use { it.body?.bytes() }
+                revalidating.remove(request.url)
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                revalidating.remove(request.url)
+            }
+        })
+    }
+
+    /**
+     * Sends [request] and, when no response arrives within [hedgeDelayInMillis],
+     * sends it once more. The first successful response wins, the other call is cancelled.
+     */
+    private fun executeHedged(request: Request, hedgeDelayInMillis: Long, tracker: CallTracker): Response {
+        val attempts = HedgedAttempts()
         try {
-            val response = okHttpClient.newCall(request).execute()
-            if (!response.isSuccessful) {
-                return NetworkResult.Failure(HttpException(response.code, response.message))
+            attempts.launch(tracker.newCall(request))
+            val first = attempts.outcomes.poll(hedgeDelayInMillis, TimeUnit.MILLISECONDS)
+            if (first is Outcome.Success) {
+                return attempts.finish(first)
+            } else if (first is Outcome.Failure) {
+                throw attempts.finish(first)
             }
-            return try {
-                val result = response.body!!.use(parse)
-                NetworkResult.Success(result)
-            } catch (exception: Exception) {
-                NetworkResult.Failure(ResponseParseException(exception))
+            attempts.launch(tracker.newCall(request))
+            var failure: Outcome.Failure? = null
+            repeat(attempts.launched) {
+                when (val outcome = attempts.outcomes.take()) {
+                    is Outcome.Success -> return attempts.finish(outcome)
+                    is Outcome.Failure -> failure = outcome
+                }
+            }
+            throw attempts.finish(failure!!)
+        } catch (exception: InterruptedException) {
+            attempts.cancel()
+            throw InterruptedIOException()
+        }
+    }
+
+    companion object {
+        private const val STALE_WARNING = "110"
+        private const val HTTP_NOT_MODIFIED = 304
+    }
+
+    /**
+     * Registers calls made by a single [execute] or [revalidate] in the current [CallScope]
+     * and marks them finished once the response has been consumed.
+     */
+    private inner class CallTracker : Closeable {
+        private val scope = CallScope.current()
+        private val calls = mutableListOf<Call>()
+
+        fun newCall(request: Request): Call {
+            val call = okHttpClient.newCall(request)
+            calls.add(call)
+            scope?.register(call)
+            return call
+        }
+
+        override fun close() {
+            scope?.let { calls.forEach(it::finished) }
+        }
+    }
+
+    private sealed class Outcome(val call: Call) {
+        class Success(call: Call, val response: Response) : Outcome(call)
+        class Failure(call: Call, val exception: IOException) : Outcome(call)
+    }
+
+    private class HedgedAttempts {
+        val outcomes = LinkedBlockingQueue<Outcome>()
+        private val calls = mutableListOf<Call>()
+        private var finished = false
+
+        val launched: Int
+            get() = calls.size
+
+        fun launch(call: Call) {
+            calls.add(call)
+            call.enqueue(object : Callback {
+                override fun onResponse(call: Call, response: Response) = offer(Outcome.Success(call, response))
+
+                override fun onFailure(call: Call, e: IOException) = offer(Outcome.Failure(call, e))
+            })
+        }
+
+        fun finish(winner: Outcome.Success): Response {
+            cancel(except = winner.call)
+            return winner.response
+        }
+
+        fun finish(failure: Outcome.Failure): IOException {
+            cancel()
+            return failure.exception
+        }
+
+        @Synchronized
+        fun cancel(except: Call? = null) {
+            finished = true
+            calls.filter { it !== except }.forEach { it.cancel() }
+            outcomes.forEach { (it as? Outcome.Success)?.response?.close() }
+            outcomes.clear()
+        }
+
+        @Synchronized
+        private fun offer(outcome: Outcome) {
+            if (!finished) {
+                outcomes.add(outcome)
+            } else if (outcome is Outcome.Success) {
+                outcome.response.close()
             }
-        } catch (exception: IOException) {
-            return NetworkResult.Failure(exception)
         }
     }
 }
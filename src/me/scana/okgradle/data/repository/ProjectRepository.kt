@@ -0,0 +1,30 @@
+package me.scana.okgradle.data.repository
+
+import io.reactivex.Single
+import me.scana.okgradle.data.ArtifactCatalog
+
+/**
+ * Artifacts the open project already depends on, in the version it uses, answered without any network call.
+ * An empty query lists all of them, so there is something to pick from before the user types anything.
+ */
+class ProjectRepository(
+        private val catalog: ArtifactCatalog,
+        private val maxResults: Int = DEFAULT_MAX_RESULTS
+) : ArtifactRepository {
+
+    companion object {
+        const val DEFAULT_MAX_RESULTS = 100
+    }
+
+    override val minQueryLength = 0
+
+    override val cachesResults = false
+
+    override val showsUsedVersions = true
+
+    override fun search(query: String): Single<SearchResult> {
+        return Single.fromCallable<SearchResult> { SearchResult.Success(catalog.find(query, maxResults)) }
+    }
+
+    override fun answersLocally(query: String) = true
+}
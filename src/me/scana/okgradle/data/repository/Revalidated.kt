@@ -0,0 +1,12 @@
+package me.scana.okgradle.data.repository
+
+data class Validators(val etag: String?, val lastModified: String?) {
+    companion object {
+        val NONE = Validators(null, null)
+    }
+}
+
+/**
+ * Outcome of a conditional request: [data] is null when the copy described by [validators] is still current.
+ */
+class Revalidated<T>(val data: T?, val validators: Validators)
@@ -1,6 +1,13 @@
 package me.scana.okgradle.data.repository
 
 sealed class SearchResult {
-    class Success(val artifacts: List<Artifact> = emptyList(), val suggestion: String? = null) : SearchResult()
+    /**
+     * [releasedAt] holds release times, in milliseconds, of the versions of [artifacts] whose repository reports them.
+     */
+    class Success(
+            val artifacts: List<Artifact> = emptyList(),
+            val suggestion: String? = null,
+            val releasedAt: Map<Artifact, Long> = emptyMap()
+    ) : SearchResult()
     class Error(val throwable: Throwable) : SearchResult()
 }
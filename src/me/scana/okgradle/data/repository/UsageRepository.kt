@@ -0,0 +1,34 @@
+package me.scana.okgradle.data.repository
+
+import io.reactivex.Single
+import me.scana.okgradle.data.UsageStatistics
+
+/**
+ * Artifacts the user added or copied before, in the version used last time, answered without any network call.
+ */
+class UsageRepository(
+        private val statistics: UsageStatistics,
+        private val maxResults: Int = DEFAULT_MAX_RESULTS
+) : ArtifactRepository {
+
+    companion object {
+        const val DEFAULT_MAX_RESULTS = 20
+    }
+
+    override val cachesResults = false
+
+    override fun search(query: String): Single<SearchResult> {
+        return Single.fromCallable<SearchResult> {
+            when {
+                query.isEmpty() -> SearchResult.Success()
+                else -> SearchResult.Success(statistics.find(query, maxResults))
+            }
+        }
+    }
+
+    override fun answersLocally(query: String) = true
+
+    override fun warmUp() {
+        statistics.load()
+    }
+}
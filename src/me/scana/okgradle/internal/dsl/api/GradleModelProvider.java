@@ -38,6 +38,9 @@ public abstract class GradleModelProvider {
   @NotNull
   public abstract me.scana.okgradle.internal.dsl.api.ProjectBuildModel getProjectModel(@NotNull Project project);
 
+  @NotNull
+  public abstract ProjectBuildModel getProjectModelForReading(@NotNull Project project);
+
   @Nullable
   public abstract ProjectBuildModel getProjectModel(@NotNull Project hostProject, @NotNull String compositeRoot);
 
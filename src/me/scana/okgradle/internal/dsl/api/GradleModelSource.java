@@ -40,6 +40,12 @@ public class GradleModelSource extends GradleModelProvider {
     return ProjectBuildModelImpl.get(project);
   }
 
+  @NotNull
+  @Override
+  public ProjectBuildModel getProjectModelForReading(@NotNull Project project) {
+    return ProjectBuildModelImpl.getForReading(project);
+  }
+
   @Override
   @Nullable
   public ProjectBuildModel getProjectModel(@NotNull Project hostProject, @NotNull String compositeRoot) {
@@ -43,6 +43,11 @@ public interface ProjectBuildModel {
    * The returned {@link ProjectBuildModel} is not thread safe. If you need to use the {@link ProjectBuildModel} from a multithreaded
    * environment {@link ProjectBuildModelHandler} provides some basic synchronization.
    *
+   * <p>Models returned for the same project share the files they parsed, so only files that changed since an earlier call are
+   * parsed again. Changes made through one model and not yet applied make the next call parse the changed files again. Since the
+   * next call drops the files that changed, only the latest model of a project may be used: an earlier one, including the
+   * {@link GradleBuildModel}s it has not parsed yet, throws an {@link IllegalStateException}. Get a new model instead of keeping one.
+   *
    * @param project the project to create a model for.
    * @return the model for the project
    */
@@ -51,6 +56,24 @@ public interface ProjectBuildModel {
     return GradleModelProvider.get().getProjectModel(project);
   }
 
+  /**
+   * Same as {@link #get(Project)}, but the returned models share their parsed files only with other models returned by this method.
+   * Meant for reading the build files in the background, e.g. to index them, without touching the files that {@link #get(Project)}
+   * hands out for making changes.
+   *
+   * <p>As with {@link #get(Project)}, only the latest model returned by this method may be used.
+   *
+   * <p>Reading some parts of a model, e.g. {@link GradleBuildModel#dependencies()} of a file without a dependencies block, adds empty
+   * elements to it. Call {@link #resetState()} once done reading, or the next call parses the files again.
+   *
+   * @param project the project to create a model for.
+   * @return the model for the project
+   */
+  @NotNull
+  static ProjectBuildModel getForReading(@NotNull Project project) {
+    return GradleModelProvider.get().getProjectModelForReading(project);
+  }
+
   /**
    * This method should never be called on the UI thread, it will cause the parsing of Gradle build files which can take a long time.
    * The returned {@link ProjectBuildModel} is not thread safe. If you need to use the {@link ProjectBuildModel} from a multithreaded
@@ -174,7 +197,8 @@ public interface ProjectBuildModel {
 
   /**
    * This method may miss files that should be included in the build if we can't correctly parse the Gradle settings file,
-   * this method will parse any files that have not yet been parsed.
+   * module build files that have not yet been parsed are parsed the first time their returned model is used for anything other
+   * than its file or project.
    * <p>
    * This method does NOT include files from composite builds, for those another {@link ProjectBuildModel} should be obtained
    *
@@ -183,4 +207,16 @@ public interface ProjectBuildModel {
    */
   @NotNull
   List<GradleBuildModel> getAllIncludedBuildModels();
+
+  /**
+   * Same as {@link #getAllIncludedBuildModels()}, but parses all module build files up front on background threads and resolves the
+   * references between them once all are parsed. One thread less than there are cores is used, unless the {@code okgradle.parser.threads}
+   * system property says otherwise. Parsing gives way to write actions and starts over after them, so this method must not be called
+   * from within a read action. The current progress indicator is checked before every level of modules, and a failing module stops
+   * the ones not parsed yet.
+   *
+   * @return a list of all build models that can be created from Gradle build files, with all of them parsed
+   */
+  @NotNull
+  List<GradleBuildModel> parseAllIncludedBuildModels();
 }
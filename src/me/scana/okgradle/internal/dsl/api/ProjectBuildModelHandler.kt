@@ -16,8 +16,6 @@
 package me.scana.okgradle.internal.dsl.api
 
 import com.android.annotations.VisibleForTesting
-import com.android.tools.idea.gradle.project.sync.GradleFiles
-import com.android.tools.idea.gradle.project.sync.GradleSyncState
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.components.ServiceManager
 import com.intellij.openapi.project.Project
@@ -33,14 +31,10 @@ import kotlin.concurrent.withLock
  * Also provides synchronization by using a [ReentrantReadWriteLock] to guard both [read] and [modify].
  * These methods should not be called from the UI thread.
  *
- * This handler shares an instance of the [ProjectBuildModel] and commits all changes on every call to
+ * This handler gets the latest [ProjectBuildModel] and commits all changes on every call to
  * [modify] if you require more fine grained control please use [ProjectBuildModel.get].
  */
 class ProjectBuildModelHandler(val project: Project) {
-  /**
-   * The time stamp of the last sync before the [ProjectBuildModel] was created.
-   */
-  private var modelSyncTime : Long = -1L
   private var projectBuildModel: ProjectBuildModel? = null
   private val lock: Lock = ReentrantLock()
 
@@ -78,22 +72,18 @@ class ProjectBuildModelHandler(val project: Project) {
   }
 
   /**
-   * Returns the [ProjectBuildModel], refreshes it if it falls out of date.
+   * Returns a new [ProjectBuildModel] for every call. Models of a project share the files they parsed, which makes this cheap, and
+   * only the latest one may be used.
    */
   private fun projectModel(): ProjectBuildModel {
-    val lastKnownSyncTime = -1L
-
-    return projectBuildModel?.takeUnless {
-      GradleFiles.getInstance(project).areGradleFilesModified() || modelSyncTime != lastKnownSyncTime
-    } ?: ProjectBuildModel.get(project).also { modelSyncTime = lastKnownSyncTime }
+    return projectBuildModel ?: ProjectBuildModel.get(project)
   }
 
   /**
    * DO NOT use outside of tests.
    */
   @VisibleForTesting
-  constructor(project: Project, projectModel: ProjectBuildModel, lastSync: Long = -1L) : this(project) {
+  constructor(project: Project, projectModel: ProjectBuildModel) : this(project) {
     projectBuildModel = projectModel
-    modelSyncTime = lastSync
   }
 }
\ No newline at end of file
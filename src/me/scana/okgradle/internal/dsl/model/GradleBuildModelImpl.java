@@ -70,6 +70,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -194,13 +195,20 @@ public class GradleBuildModelImpl extends GradleFileModelImpl implements GradleB
                                                @NotNull BuildModelContext context,
                                                boolean isApplied) {
     GradleBuildFile buildDslFile = new GradleBuildFile(file, project, moduleName, context);
-    ApplicationManager.getApplication().runReadAction(() -> {
-      if (!isApplied) {
-        populateWithParentModuleSubProjectsProperties(buildDslFile, context);
-      }
-      populateSiblingDslFileWithGradlePropertiesFile(buildDslFile, context);
-      buildDslFile.parse();
-    });
+    try {
+      ApplicationManager.getApplication().runReadAction(() -> {
+        if (!isApplied) {
+          populateWithParentModuleSubProjectsProperties(buildDslFile, context);
+        }
+        populateSiblingDslFileWithGradlePropertiesFile(buildDslFile, context);
+        buildDslFile.parse();
+      });
+    }
+    catch (ProcessCanceledException e) {
+      // A write action cancelled the parse, don't leave the partially parsed file attached to the parent or other files.
+      buildDslFile.discard();
+      throw e;
+    }
     return buildDslFile;
   }
 
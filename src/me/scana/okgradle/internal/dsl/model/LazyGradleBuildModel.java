@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.scana.okgradle.internal.dsl.model;
+
+import me.scana.okgradle.internal.dsl.api.BuildModelNotification;
+import me.scana.okgradle.internal.dsl.api.BuildScriptModel;
+import me.scana.okgradle.internal.dsl.api.GradleBuildModel;
+import me.scana.okgradle.internal.dsl.api.GradleFileModel;
+import me.scana.okgradle.internal.dsl.api.PluginModel;
+import me.scana.okgradle.internal.dsl.api.android.AndroidModel;
+import me.scana.okgradle.internal.dsl.api.configurations.ConfigurationsModel;
+import me.scana.okgradle.internal.dsl.api.dependencies.DependenciesModel;
+import me.scana.okgradle.internal.dsl.api.ext.ExtModel;
+import me.scana.okgradle.internal.dsl.api.ext.GradlePropertyModel;
+import me.scana.okgradle.internal.dsl.api.java.JavaModel;
+import me.scana.okgradle.internal.dsl.api.repositories.RepositoriesModel;
+import me.scana.okgradle.internal.dsl.api.values.GradleNotNullValue;
+import me.scana.okgradle.internal.dsl.parser.BuildModelContext;
+import me.scana.okgradle.internal.dsl.parser.files.GradleBuildFile;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * A {@link GradleBuildModel} of a module build file that is only parsed once something other than its file or project is asked for.
+ * This lets {@link ProjectBuildModelImpl#getAllIncludedBuildModels()} list every module of a large project without parsing the
+ * modules nobody looks at.
+ */
+final class LazyGradleBuildModel implements GradleBuildModel {
+  @NotNull private final BuildModelContext myBuildModelContext;
+  private final int myModelGeneration;
+  @NotNull private final String myModulePath;
+  @NotNull private final VirtualFile myFile;
+  @Nullable private volatile GradleBuildModel myDelegate;
+
+  LazyGradleBuildModel(@NotNull BuildModelContext context, int modelGeneration, @NotNull String modulePath, @NotNull VirtualFile file) {
+    myBuildModelContext = context;
+    myModelGeneration = modelGeneration;
+    myModulePath = modulePath;
+    myFile = file;
+  }
+
+  /**
+   * @return the Gradle path of the module, for example ":app"
+   */
+  @NotNull
+  String getModulePath() {
+    return myModulePath;
+  }
+
+  /**
+   * @return whether the build file has been parsed for this model
+   */
+  boolean isParsed() {
+    return myDelegate != null;
+  }
+
+  @NotNull
+  GradleBuildModel getDelegate() {
+    GradleBuildModel delegate = myDelegate;
+    if (delegate == null) {
+      myBuildModelContext.checkModelGeneration(myModelGeneration);
+      GradleBuildFile dslFile = myBuildModelContext.getOrCreateBuildFile(myFile, false);
+      delegate = new GradleBuildModelImpl(dslFile);
+      myDelegate = delegate;
+    }
+    return delegate;
+  }
+
+  @NotNull
+  @Override
+  public Project getProject() {
+    return myBuildModelContext.getProject();
+  }
+
+  @NotNull
+  @Override
+  public VirtualFile getVirtualFile() {
+    return myFile;
+  }
+
+  @Override
+  public void reparse() {
+    getDelegate().reparse();
+  }
+
+  @Override
+  public boolean isModified() {
+    return isParsed() && getDelegate().isModified();
+  }
+
+  @Override
+  public void resetState() {
+    if (isParsed()) {
+      getDelegate().resetState();
+    }
+  }
+
+  @Override
+  public void applyChanges() {
+    if (isParsed()) {
+      getDelegate().applyChanges();
+    }
+  }
+
+  @Override
+  public Map<String, List<BuildModelNotification>> getNotifications() {
+    return getDelegate().getNotifications();
+  }
+
+  @NotNull
+  @Override
+  public Map<String, GradlePropertyModel> getInScopeProperties() {
+    return getDelegate().getInScopeProperties();
+  }
+
+  @NotNull
+  @Override
+  public List<GradlePropertyModel> getDeclaredProperties() {
+    return getDelegate().getDeclaredProperties();
+  }
+
+  @Nullable
+  @Override
+  public PsiElement getPsiElement() {
+    return getDelegate().getPsiElement();
+  }
+
+  @Deprecated
+  @NotNull
+  @Override
+  public List<GradleNotNullValue<String>> appliedPlugins() {
+    return getDelegate().appliedPlugins();
+  }
+
+  @NotNull
+  @Override
+  public List<PluginModel> plugins() {
+    return getDelegate().plugins();
+  }
+
+  @NotNull
+  @Override
+  public PluginModel applyPlugin(@NotNull String plugin) {
+    return getDelegate().applyPlugin(plugin);
+  }
+
+  @Override
+  public void removePlugin(@NotNull String plugin) {
+    getDelegate().removePlugin(plugin);
+  }
+
+  @NotNull
+  @Override
+  public AndroidModel android() {
+    return getDelegate().android();
+  }
+
+  @NotNull
+  @Override
+  public BuildScriptModel buildscript() {
+    return getDelegate().buildscript();
+  }
+
+  @NotNull
+  @Override
+  public ConfigurationsModel configurations() {
+    return getDelegate().configurations();
+  }
+
+  @NotNull
+  @Override
+  public DependenciesModel dependencies() {
+    return getDelegate().dependencies();
+  }
+
+  @NotNull
+  @Override
+  public ExtModel ext() {
+    return getDelegate().ext();
+  }
+
+  @NotNull
+  @Override
+  public JavaModel java() {
+    return getDelegate().java();
+  }
+
+  @NotNull
+  @Override
+  public RepositoriesModel repositories() {
+    return getDelegate().repositories();
+  }
+
+  @NotNull
+  @Override
+  public Set<GradleFileModel> getInvolvedFiles() {
+    return getDelegate().getInvolvedFiles();
+  }
+
+  @TestOnly
+  @Override
+  public void removeRepositoriesBlocks() {
+    getDelegate().removeRepositoriesBlocks();
+  }
+}
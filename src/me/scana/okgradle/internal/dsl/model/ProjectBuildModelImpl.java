@@ -30,29 +30,55 @@ import me.scana.okgradle.internal.dsl.parser.BuildModelContext;
 import me.scana.okgradle.internal.dsl.parser.files.GradleBuildFile;
 import me.scana.okgradle.internal.dsl.parser.files.GradleDslFile;
 import me.scana.okgradle.internal.dsl.parser.files.GradleSettingsFile;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class ProjectBuildModelImpl implements ProjectBuildModel {
+  // One core is left to the UI, which keeps running while the modules are parsed. Parsing mostly holds read actions rather than
+  // waiting on I/O, so more threads than cores don't help.
+  private static final int PARSER_THREADS =
+    Integer.getInteger("okgradle.parser.threads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  private static final ExecutorService PARSER_EXECUTOR =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Gradle Build File Parser", PARSER_THREADS);
+
   @NotNull private final BuildModelContext myBuildModelContext;
+  private final int myModelGeneration;
   @Nullable private final GradleBuildFile myProjectBuildFile;
 
   @NotNull
   public static ProjectBuildModel get(@NotNull Project project) {
     VirtualFile file = getGradleBuildFile(getBaseDirPath(project));
-    return new ProjectBuildModelImpl(project, file);
+    return new ProjectBuildModelImpl(project, file, BuildModelContext.getOrCreateProjectContext(project));
+  }
+
+  @NotNull
+  public static ProjectBuildModel getForReading(@NotNull Project project) {
+    VirtualFile file = getGradleBuildFile(getBaseDirPath(project));
+    return new ProjectBuildModelImpl(project, file, BuildModelContext.getOrCreateReadingContext(project));
   }
 
   @Nullable
@@ -62,33 +88,44 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
       return null;
     }
 
-    return new ProjectBuildModelImpl(hostProject, file);
+    return new ProjectBuildModelImpl(hostProject, file, BuildModelContext.create(hostProject));
   }
 
   /**
    * @param project the project this model should be built for
    * @param file the file contain the projects main build.gradle
+   * @param context the context to parse files in, models sharing a context share the files parsed so far
    */
-  private ProjectBuildModelImpl(@NotNull Project project, @Nullable VirtualFile file) {
-    myBuildModelContext = BuildModelContext.create(project);
+  private ProjectBuildModelImpl(@NotNull Project project, @Nullable VirtualFile file, @NotNull BuildModelContext context) {
+    myBuildModelContext = context;
+    myModelGeneration = context.startModel();
+
+    GradleDslFile rootProjectFile = myBuildModelContext.getRootProjectFile();
+    if (file != null && rootProjectFile instanceof GradleBuildFile && rootProjectFile.getFile().equals(file)) {
+      // The main project build file did not change since it was parsed for an earlier model.
+      myProjectBuildFile = (GradleBuildFile)rootProjectFile;
+      return;
+    }
 
     // First parse the main project build file.
-    myProjectBuildFile = file != null ? new GradleBuildFile(file, project, project.getName(), myBuildModelContext) : null;
-    if (myProjectBuildFile != null) {
-      myBuildModelContext.setRootProjectFile(myProjectBuildFile);
+    GradleBuildFile projectBuildFile = file != null ? new GradleBuildFile(file, project, project.getName(), myBuildModelContext) : null;
+    if (projectBuildFile != null) {
+      myBuildModelContext.setRootProjectFile(projectBuildFile);
       ApplicationManager.getApplication().runReadAction(() -> {
-        populateWithParentModuleSubProjectsProperties(myProjectBuildFile, myBuildModelContext);
-        populateSiblingDslFileWithGradlePropertiesFile(myProjectBuildFile, myBuildModelContext);
-        myProjectBuildFile.parse();
+        populateWithParentModuleSubProjectsProperties(projectBuildFile, myBuildModelContext);
+        populateSiblingDslFileWithGradlePropertiesFile(projectBuildFile, myBuildModelContext);
+        projectBuildFile.parse();
       });
-      myBuildModelContext.putBuildFile(file.getUrl(), myProjectBuildFile);
+      projectBuildFile = (GradleBuildFile)myBuildModelContext.putRootProjectFileIfAbsent(projectBuildFile);
     }
+    myProjectBuildFile = projectBuildFile;
   }
 
 
   @Override
   @Nullable
   public GradleBuildModel getProjectBuildModel() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     return myProjectBuildFile == null ? null : new me.scana.okgradle.internal.dsl.model.GradleBuildModelImpl(myProjectBuildFile);
   }
 
@@ -117,6 +154,7 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
   @Override
   @NotNull
   public GradleBuildModel getModuleBuildModel(@NotNull VirtualFile file) {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     GradleBuildFile dslFile = myBuildModelContext.getOrCreateBuildFile(file, false);
     return new me.scana.okgradle.internal.dsl.model.GradleBuildModelImpl(dslFile);
   }
@@ -124,6 +162,7 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
   @Override
   @Nullable
   public GradleSettingsModel getProjectSettingsModel() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     VirtualFile virtualFile = null;
     // If we don't have a root build file, guess the location of the settings file from the project.
     if (myProjectBuildFile == null) {
@@ -146,6 +185,7 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
 
   @Override
   public void applyChanges() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     runOverProjectTree(file -> {
       file.applyChanges();
       file.saveAllChanges();
@@ -155,11 +195,13 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
 
   @Override
   public void resetState() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     runOverProjectTree(GradleDslFile::resetState);
   }
 
   @Override
   public void reparse() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     myBuildModelContext.reset();
     runOverProjectTree(GradleDslFile::reparse);
   }
@@ -167,6 +209,7 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
   @NotNull
   @Override
   public List<GradleBuildModel> getAllIncludedBuildModels() {
+    myBuildModelContext.checkModelGeneration(myModelGeneration);
     List<GradleBuildModel> allModels = new ArrayList<>();
     if (myProjectBuildFile != null) {
       allModels.add(new GradleBuildModelImpl(myProjectBuildFile));
@@ -193,11 +236,70 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
         return null;
       }
 
-      return getModuleBuildModel(file);
+      return new LazyGradleBuildModel(myBuildModelContext, myModelGeneration, modulePath, file);
     }).filter(Objects::nonNull).collect(Collectors.toList()));
     return allModels;
   }
 
+  @NotNull
+  @Override
+  public List<GradleBuildModel> parseAllIncludedBuildModels() {
+    if (ApplicationManager.getApplication().isReadAccessAllowed()) {
+      throw new IllegalStateException("Build files can't be parsed in parallel from within a read action");
+    }
+    List<GradleBuildModel> allModels =
+      ApplicationManager.getApplication().runReadAction((Computable<List<GradleBuildModel>>)this::getAllIncludedBuildModels);
+
+    // Parse modules level by level, a module may need the subprojects block of its parent which is then parsed already.
+    Map<Integer, List<LazyGradleBuildModel>> modelsByDepth = allModels.stream()
+      .filter(model -> model instanceof LazyGradleBuildModel)
+      .map(model -> (LazyGradleBuildModel)model)
+      .collect(Collectors.groupingBy(model -> StringUtil.countChars(model.getModulePath(), ':'), TreeMap::new, Collectors.toList()));
+    for (List<LazyGradleBuildModel> models : modelsByDepth.values()) {
+      ProgressManager.checkCanceled();
+      List<Future<?>> futures = models.stream()
+        .map(model -> PARSER_EXECUTOR.submit(() -> parseInNonBlockingReadAction(model)))
+        .collect(Collectors.toList());
+      awaitAll(futures);
+    }
+
+    // References between files were left unresolved while parsing, resolve them all at once.
+    ApplicationManager.getApplication().runReadAction(() -> myBuildModelContext.getDependencyManager().resolveAll());
+    return allModels;
+  }
+
+  /**
+   * Waits for all the given futures. When one of them fails or the wait is interrupted, the others are cancelled so that no more
+   * modules are parsed for a result that will not be used. Parses already running are not interrupted, only their results are dropped.
+   */
+  private static void awaitAll(@NotNull List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(false));
+      Thread.currentThread().interrupt();
+      throw new ProcessCanceledException(e);
+    }
+    catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(false));
+      if (e.getCause() instanceof ProcessCanceledException) {
+        throw (ProcessCanceledException)e.getCause();
+      }
+      throw new UncheckedExecutionException(e.getCause());
+    }
+  }
+
+  private void parseInNonBlockingReadAction(@NotNull LazyGradleBuildModel model) {
+    // Give way to write actions instead of holding them up for the whole parse, and start over once they are done.
+    while (!ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(
+      () -> myBuildModelContext.getDependencyManager().runDeferringResolution(model::getDelegate))) {
+      ProgressIndicatorUtils.yieldToPendingWriteActions();
+    }
+  }
+
   private void runOverProjectTree(@NotNull Consumer<GradleDslFile> func) {
     myBuildModelContext.getAllRequestedFiles().forEach(func);
   }
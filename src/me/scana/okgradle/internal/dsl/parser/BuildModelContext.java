@@ -30,9 +30,10 @@ import com.google.common.collect.ClassToInstanceMap;
 import com.google.common.collect.MutableClassToInstanceMap;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -43,19 +44,28 @@ import java.util.List;
  * A context object used to hold information relevant to each unique instance of the project/build model.
  * This means there is one {@link BuildModelContext} for each call to the following methods,
  * {@link GradleBuildModel#parseBuildFile(VirtualFile, Project)}, {@link GradleBuildModel#get(Module)}
- * and {@link ProjectBuildModel#get(Project)}. This can be accessed from each of the {@link GradleDslFile}s.
+ * and {@link ProjectBuildModel#get(Project, String)}. This can be accessed from each of the {@link GradleDslFile}s.
+ *
+ * <p>{@link ProjectBuildModel#get(Project)} instead shares one {@link #getOrCreateProjectContext(Project) project context} between
+ * all calls, which keeps the parsed files until they change. {@link ProjectBuildModel#getForReading(Project)} does the same with a
+ * {@link #getOrCreateReadingContext(Project) context of its own}. Each new model of a context {@link #startModel() drops} the files
+ * that changed, so only the latest one may be used.
  */
 public final class BuildModelContext {
+  private static final Key<BuildModelContext> PROJECT_CONTEXT_KEY = Key.create("okgradle.build.model.context");
+  private static final Key<BuildModelContext> READING_CONTEXT_KEY = Key.create("okgradle.build.model.reading.context");
+
   @NotNull
   private final Project myProject;
   @NotNull
   private final GradleDslFileCache myFileCache;
   @NotNull
-  private final Map<GradleDslFile, ClassToInstanceMap<BuildModelNotification>> myNotifications = new HashMap<>();
+  private final Map<GradleDslFile, ClassToInstanceMap<BuildModelNotification>> myNotifications = new ConcurrentHashMap<>();
   @NotNull
-  private final DependencyManager myDependencyManager;
+  private volatile DependencyManager myDependencyManager;
   @Nullable
-  private GradleDslFile myRootProjectFile;
+  private volatile GradleDslFile myRootProjectFile;
+  private volatile int myModelGeneration;
 
   public void setRootProjectFile(@NotNull GradleDslFile rootProjectFile) {
     myRootProjectFile = rootProjectFile;
@@ -66,11 +76,84 @@ public final class BuildModelContext {
     return myRootProjectFile;
   }
 
+  /**
+   * Sets and caches the root project file, unless another thread parsed it first.
+   *
+   * @return the root project file of this context
+   */
+  @NotNull
+  public synchronized GradleDslFile putRootProjectFileIfAbsent(@NotNull GradleDslFile rootProjectFile) {
+    myRootProjectFile = myFileCache.putBuildFileIfAbsent(rootProjectFile.getFile().getUrl(), rootProjectFile);
+    return myRootProjectFile;
+  }
+
   @NotNull
   public static BuildModelContext create(@NotNull Project project) {
     return new BuildModelContext(project);
   }
 
+  /**
+   * Returns the context shared by all project build models of the given project, without the files that changed since they
+   * were parsed.
+   */
+  @NotNull
+  public static BuildModelContext getOrCreateProjectContext(@NotNull Project project) {
+    return getOrCreateSharedContext(project, PROJECT_CONTEXT_KEY);
+  }
+
+  /**
+   * Same as {@link #getOrCreateProjectContext(Project)}, but for models that are only read in the background, which then never share
+   * their files with models that are changed.
+   */
+  @NotNull
+  public static BuildModelContext getOrCreateReadingContext(@NotNull Project project) {
+    return getOrCreateSharedContext(project, READING_CONTEXT_KEY);
+  }
+
+  @NotNull
+  private static synchronized BuildModelContext getOrCreateSharedContext(@NotNull Project project, @NotNull Key<BuildModelContext> key) {
+    BuildModelContext context = project.getUserData(key);
+    if (context == null) {
+      context = new BuildModelContext(project);
+      context.myFileCache.listenForChanges(project);
+      project.putUserData(key, context);
+    }
+    return context;
+  }
+
+  /**
+   * Starts a new model of this context, which drops the files that changed since they were parsed. Files the models created before
+   * may still be using can be dropped, so only the latest model may be used, see {@link #checkModelGeneration(int)}.
+   *
+   * @return the generation of the new model
+   */
+  public synchronized int startModel() {
+    removeStaleFiles();
+    return ++myModelGeneration;
+  }
+
+  /**
+   * @throws IllegalStateException if a newer model than the one of the given generation was started
+   */
+  public void checkModelGeneration(int generation) {
+    if (generation != myModelGeneration) {
+      throw new IllegalStateException("A newer build model of " + myProject.getName() + " was created, get a new model to go on");
+    }
+  }
+
+  private void removeStaleFiles() {
+    List<GradleDslFile> removedFiles = myFileCache.removeStaleFiles(myRootProjectFile);
+    if (removedFiles == null) {
+      myNotifications.clear();
+      myDependencyManager = DependencyManager.create();
+      myRootProjectFile = null;
+      return;
+    }
+    for (GradleDslFile file : removedFiles) {
+      myNotifications.remove(file);
+    }
+  }
+
   private BuildModelContext(@NotNull Project project) {
     myProject = project;
     myFileCache = new GradleDslFileCache(project);
@@ -17,17 +17,34 @@ package me.scana.okgradle.internal.dsl.parser;
 
 import me.scana.okgradle.internal.dsl.parser.GradleReferenceInjection;
 import me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement;
+import me.scana.okgradle.internal.dsl.parser.files.GradleDslFile;
+import com.android.annotations.VisibleForTesting;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
- * Class to manage unresolved dependencies.
+ * Class to manage unresolved dependencies. Files of one {@link BuildModelContext} may be parsed from several threads, so all
+ * methods are synchronized.
+ *
+ * <p>Unresolved dependencies are also indexed by every part of the name they refer to, e.g "ext.versions['kotlin']" by "ext",
+ * "versions" and "kotlin", so that a new or renamed element only needs to be checked against the dependencies that could refer to it.
  */
 public final class DependencyManager {
-  @NotNull private final List<GradleReferenceInjection> myUnresolvedReferences = new ArrayList<>();
+  private static final Pattern NAME_SEPARATORS = Pattern.compile("[.\\[\\]'\"\\s]+");
+
+  @NotNull private final Set<GradleReferenceInjection> myUnresolvedReferences = new LinkedHashSet<>();
+  @NotNull private final Map<String, Set<GradleReferenceInjection>> myUnresolvedReferencesByName = new HashMap<>();
+  @NotNull private final ThreadLocal<Boolean> myResolutionDeferred = ThreadLocal.withInitial(() -> false);
 
   public static DependencyManager create() {
     return new DependencyManager();
@@ -39,44 +56,128 @@ public final class DependencyManager {
   /**
    * Registers a new unresolved dependency.
    */
-  public void registerUnresolvedReference(@NotNull GradleReferenceInjection injection) {
+  public synchronized void registerUnresolvedReference(@NotNull GradleReferenceInjection injection) {
     // Make sure the reference is not resolved.
     assert !injection.isResolved();
-    myUnresolvedReferences.add(injection);
+    if (myUnresolvedReferences.add(injection)) {
+      for (String name : splitName(injection.getName())) {
+        myUnresolvedReferencesByName.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(injection);
+      }
+    }
   }
 
   /**
    * Unregisters an unresolved dependency.
    */
-  public void unregisterUnresolvedReference(@NotNull GradleReferenceInjection injection) {
+  public synchronized void unregisterUnresolvedReference(@NotNull GradleReferenceInjection injection) {
     // Make sure the reference is not resolved.
     assert !injection.isResolved();
-    myUnresolvedReferences.remove(injection);
+    remove(injection);
   }
 
   /**
-   * Attempt to resolve dependencies related to a change in a given element.
-   * This currently just delegates to {@link #resolveAll()}
+   * Unregisters the unresolved dependencies of elements in the given file, used once the file is no longer cached.
+   */
+  public synchronized void unregisterUnresolvedReferences(@NotNull GradleDslFile file) {
+    List<GradleReferenceInjection> injections = new ArrayList<>();
+    for (GradleReferenceInjection injection : myUnresolvedReferences) {
+      if (injection.getOriginElement().getDslFile() == file) {
+        injections.add(injection);
+      }
+    }
+    injections.forEach(this::remove);
+  }
+
+  /**
+   * Runs the given action, usually parsing a file, without attempting to resolve dependencies on the calling thread. Files parsed on
+   * several threads then leave their unresolved dependencies for a single {@link #resolveAll()} once all of them are parsed.
+   */
+  public void runDeferringResolution(@NotNull Runnable action) {
+    boolean deferred = myResolutionDeferred.get();
+    myResolutionDeferred.set(true);
+    try {
+      action.run();
+    }
+    finally {
+      myResolutionDeferred.set(deferred);
+    }
+  }
+
+  /**
+   * Attempt to resolve dependencies related to a change in a given element. Only the dependencies whose name refers to the element,
+   * or to one of the elements nested in it, are attempted.
    *
-   * @param element the element that has triggered the attempted resolve. This is currently unused.
+   * @param element the element that has triggered the attempted resolve.
+   */
+  public synchronized void resolveWith(@NotNull GradleDslElement element) {
+    if (myResolutionDeferred.get() || myUnresolvedReferences.isEmpty()) {
+      return;
+    }
+    getCandidates(element).forEach(this::tryToResolve);
+  }
+
+  /**
+   * @return the unresolved dependencies whose name refers to the given element or to one of the elements nested in it
    */
-  public void resolveWith(@NotNull GradleDslElement element) {
-    resolveAll();
+  @VisibleForTesting
+  @NotNull
+  synchronized Set<GradleReferenceInjection> getCandidates(@NotNull GradleDslElement element) {
+    Set<GradleReferenceInjection> candidates = new LinkedHashSet<>();
+    Deque<GradleDslElement> elements = new ArrayDeque<>();
+    elements.add(element);
+    while (!elements.isEmpty()) {
+      GradleDslElement current = elements.poll();
+      for (String name : splitName(current.getName())) {
+        candidates.addAll(myUnresolvedReferencesByName.getOrDefault(name, Collections.emptySet()));
+      }
+      elements.addAll(current.getChildren());
+    }
+    return candidates;
   }
 
   /**
    * Attempt to resolve all of the current unresolved dependencies.
    */
-  public void resolveAll() {
-    for (Iterator<GradleReferenceInjection> it = myUnresolvedReferences.iterator(); it.hasNext();) {
-      GradleReferenceInjection injection = it.next();
-      // Attempt to re-resolve any references.
-      GradleDslElement newElement = injection.getOriginElement().resolveReference(injection.getName(), true);
-      if (newElement != null) {
-        injection.resolveWith(newElement);
-        newElement.registerDependent(injection);
-        it.remove();
+  public synchronized void resolveAll() {
+    if (myResolutionDeferred.get()) {
+      return;
+    }
+    new ArrayList<>(myUnresolvedReferences).forEach(this::tryToResolve);
+  }
+
+  private void tryToResolve(@NotNull GradleReferenceInjection injection) {
+    // Attempt to re-resolve any references.
+    GradleDslElement newElement = injection.getOriginElement().resolveReference(injection.getName(), true);
+    if (newElement != null) {
+      remove(injection);
+      injection.resolveWith(newElement);
+      newElement.registerDependent(injection);
+    }
+  }
+
+  private void remove(@NotNull GradleReferenceInjection injection) {
+    if (!myUnresolvedReferences.remove(injection)) {
+      return;
+    }
+    for (String name : splitName(injection.getName())) {
+      Set<GradleReferenceInjection> injections = myUnresolvedReferencesByName.get(name);
+      if (injections != null) {
+        injections.remove(injection);
+        if (injections.isEmpty()) {
+          myUnresolvedReferencesByName.remove(name);
+        }
+      }
+    }
+  }
+
+  @NotNull
+  private static Set<String> splitName(@NotNull String name) {
+    Set<String> names = new LinkedHashSet<>();
+    for (String part : NAME_SEPARATORS.split(name)) {
+      if (!part.isEmpty()) {
+        names.add(part);
       }
     }
+    return names;
   }
 }
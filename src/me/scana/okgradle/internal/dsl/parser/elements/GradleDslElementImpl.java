@@ -31,6 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static me.scana.okgradle.internal.dsl.api.ext.PropertyType.DERIVED;
 import static me.scana.okgradle.internal.dsl.model.ext.PropertyUtil.isNonExpressionPropertiesElement;
@@ -62,7 +63,8 @@ public abstract class GradleDslElementImpl implements me.scana.okgradle.internal
   @NotNull private PropertyType myElementType;
 
   @NotNull protected final List<GradleReferenceInjection> myDependencies = new ArrayList<>();
-  @NotNull protected final List<GradleReferenceInjection> myDependents = new ArrayList<>();
+  // Files of the same context may be parsed on several threads, registering dependents on elements of a shared parent file.
+  @NotNull protected final List<GradleReferenceInjection> myDependents = new CopyOnWriteArrayList<>();
 
   /**
    * Creates an in stance of a {@link me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement}
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNamedElement;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -52,6 +53,10 @@ public class GradleNameElement {
   @NotNull
   private final Pattern SPACES = Pattern.compile("\\s+");
 
+  // The element lists indexing elements by this name, which are told when it changes.
+  @NotNull
+  private final List<NameChangeListener> myNameChangeListeners = ContainerUtil.createLockFreeCopyOnWriteList();
+
   @Nullable
   private PsiElement myNameElement;
   @Nullable
@@ -118,6 +123,7 @@ public class GradleNameElement {
    */
   public void commitNameChange(@Nullable PsiElement nameElement) {
     setUpFrom(nameElement);
+    fireNameChanged();
   }
 
   @NotNull
@@ -186,6 +192,19 @@ public class GradleNameElement {
       myFakeName = newName;
     }
     myName = null;
+    fireNameChanged();
+  }
+
+  void addNameChangeListener(@NotNull NameChangeListener listener) {
+    myNameChangeListeners.add(listener);
+  }
+
+  void removeNameChangeListener(@NotNull NameChangeListener listener) {
+    myNameChangeListeners.remove(listener);
+  }
+
+  private void fireNameChanged() {
+    myNameChangeListeners.forEach(NameChangeListener::nameChanged);
   }
 
   public boolean isEmpty() {
@@ -269,4 +288,11 @@ public class GradleNameElement {
     }
     myName = null;
   }
+
+  /**
+   * Listens for changes to a name, e.g. to index the named element under its new name.
+   */
+  interface NameChangeListener {
+    void nameChanged();
+  }
 }
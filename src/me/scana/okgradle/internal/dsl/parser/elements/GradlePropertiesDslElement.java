@@ -105,7 +105,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
   }
 
   private void removePropertyInternal(@NotNull String property) {
-    List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> elements = myProperties.removeAll(e -> e.myElement.getName().equals(property));
+    List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> elements = myProperties.removeAllNamed(property);
     elements.forEach(e -> {
       e.setModified();
       updateDependenciesOnRemoveElement(e);
@@ -135,7 +135,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
   }
 
   private void hidePropertyInternal(@NotNull String property) {
-    myProperties.hideAll(e -> e.myElement.getName().equals(property));
+    myProperties.hideAllNamed(property);
   }
 
   public void addAppliedModelProperties(@NotNull GradleDslFile file) {
@@ -292,8 +292,8 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
 
   @NotNull
   public <T extends me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> List<T> getPropertyElements(@NotNull String name, @NotNull Class<T> clazz) {
-    return myProperties.getElementsWhere(PROPERTY_FILTER).stream()
-                       .filter(e -> clazz.isAssignableFrom(e.getClass()) && e.getName().equals(name))
+    return myProperties.getElementsNamed(name, PROPERTY_FILTER).stream()
+                       .filter(e -> clazz.isAssignableFrom(e.getClass()))
                        .map(e -> clazz.cast(e)).collect(Collectors.toList());
   }
 
@@ -330,7 +330,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
   }
 
   private me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement getElementWhere(@NotNull String name, @NotNull Predicate<ElementList.ElementItem> predicate) {
-    return getElementsWhere(predicate).get(name);
+    return myProperties.getLastElementNamed(name, predicate);
   }
 
   @Nullable
@@ -358,8 +358,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
       return getElementWhere(property, PROPERTY_FILTER);
     }
     else {
-      return myProperties
-        .getElementBeforeChildWhere(e -> PROPERTY_FILTER.test(e) && e.myElement.getName().equals(property), element, includeSelf);
+      return myProperties.getElementNamedBeforeChild(property, PROPERTY_FILTER, element, includeSelf);
     }
   }
 
@@ -369,8 +368,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
       return getElementWhere(property, ANY_FILTER);
     }
     else {
-      return myProperties
-        .getElementBeforeChildWhere(e -> ANY_FILTER.test(e) && e.myElement.getName().equals(property), element, includeSelf);
+      return myProperties.getElementNamedBeforeChild(property, ANY_FILTER, element, includeSelf);
     }
   }
 
@@ -386,7 +384,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
 
   @Nullable
   public <T extends me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> T getPropertyElement(@NotNull List<String> properties, @NotNull Class<T> clazz) {
-    me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement propertyElement = myProperties.getElementWhere(e -> properties.contains(e.myElement.getName()));
+    me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement propertyElement = myProperties.getLastElementNamed(properties);
     return clazz.isInstance(propertyElement) ? clazz.cast(propertyElement) : null;
   }
 
@@ -398,19 +396,17 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
 
   @NotNull
   public List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> getPropertyElementsByName(@NotNull String propertyName) {
-    return myProperties.getElementsWhere(e -> e.myElement.getName().equals(propertyName) && PROPERTY_FILTER.test(e));
+    return myProperties.getElementsNamed(propertyName, PROPERTY_FILTER);
   }
 
   @NotNull
   public List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> getOriginalElements() {
-    return myProperties.myElements.stream().filter(e -> e.myExistsOnFile).map(e -> e.myElement).collect(Collectors.toList());
+    return myProperties.getOriginalElements();
   }
 
   @Nullable
   public me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement getOriginalElementForNameAndType(@NotNull String name, @NotNull PropertyType type) {
-    return myProperties.myElements.stream().filter(
-      e -> e.myElement.getName().equals(name) && e.myExistsOnFile && e.myElement.getElementType() == type).map(e -> e.myElement)
-                                  .reduce((a, b) -> b).orElse(null);
+    return myProperties.getLastOriginalElementNamed(name, type);
   }
 
   /**
@@ -418,8 +414,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
    */
   @NotNull
   public List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> getCurrentElements() {
-    return myProperties.myElements.stream().filter(e -> e.myElementState == TO_BE_ADDED || e.myElementState == EXISTING)
-                                  .map(e -> e.myElement).collect(Collectors.toList());
+    return myProperties.getElementsWhere(e -> e.myElementState == TO_BE_ADDED || e.myElementState == EXISTING);
   }
 
   /**
@@ -562,7 +557,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
     // We need to find the element before `element` in my properties. The last one that has a psiElement, has the same name scheme as
     // the given element (to ensure that they should be placed in the same block) and much either have a state of TO_BE_ADDED or EXISTING.
     me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement lastElement = null;
-    for (ElementList.ElementItem item : myProperties.myElements) {
+    for (ElementList.ElementItem item : myProperties.getItems()) {
       if (item.myElement == element) {
         return lastElement;
       }
@@ -645,7 +640,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
       myProperties.getElementsWhere(e -> e.myElementState == EXISTING || e.myElementState == TO_BE_ADDED);
     List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> sortedElements = new ArrayList<>();
     boolean result = ElementSort.create(this, element).sort(currentElements, sortedElements);
-    int resultIndex = myProperties.myElements.size();
+    int resultIndex = myProperties.size();
 
     if (!result) {
       notification(PROPERTY_PLACEMENT);
@@ -685,10 +680,9 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
 
   @VisibleForTesting
   public boolean isApplied(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element) {
-    for (ElementList.ElementItem item : myProperties.myElements) {
-      if (item.myElement == element) {
-        return item.myElementState == APPLIED;
-      }
+    ElementState state = myProperties.getState(element);
+    if (state != null) {
+      return state == APPLIED;
     }
     // The element must be found.
     throw new IllegalStateException("Element not found in parent");
@@ -698,95 +692,291 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
    * Class to deal with retrieving the correct property for a given context. It manages whether
    * or not variable types should be returned along with coordinating a number of properties
    * with the same name.
+   *
+   * <p>Items are also indexed by element name and by element, with each item knowing its position in the list. The index is kept up
+   * to date while elements are appended, which is what parsing does, and rebuilt on the next lookup after any other change to the
+   * list. An element that is renamed only moves its own item to the entry of its new name.
+   *
+   * <p>Module build files parsed in parallel look up elements of the same parent files, and a lookup may rebuild the index, so every
+   * method that reads or changes the list or its index is synchronized. Only copies of the list and of its index leave this class.
+   * Elements are never called while holding the lock, as they take locks of their own in the opposite order.
    */
   private static class ElementList {
     /**
      * Wrapper to add state to each element.
      */
-    private static class ElementItem {
+    private static class ElementItem implements GradleNameElement.NameChangeListener {
+      @NotNull private final ElementList myList;
       @NotNull private me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement myElement;
       @NotNull private me.scana.okgradle.internal.dsl.parser.elements.ElementState myElementState;
       // Whether or not this element item exists in THIS DSL file. While element state == EXISTING implies this is true,
       // the reserve doesn't apply.
       private boolean myExistsOnFile;
-
-      private ElementItem(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element, @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state, boolean existsOnFile) {
+      // Position of this item in myElements and the name it is indexed by, only valid while the index of the list is.
+      private int myPosition;
+      @Nullable private String myIndexedName;
+
+      private ElementItem(@NotNull ElementList list,
+                          @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element,
+                          @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state,
+                          boolean existsOnFile) {
+        myList = list;
         myElement = element;
         myElementState = state;
         myExistsOnFile = existsOnFile;
+        myElement.getNameElement().addNameChangeListener(this);
+      }
+
+      @Override
+      public void nameChanged() {
+        myList.reindex(this);
+      }
+
+      /**
+       * Stops following the name of the element, once this item is no longer in the list.
+       */
+      private void release() {
+        myElement.getNameElement().removeNameChangeListener(this);
       }
     }
 
     @NotNull private final List<ElementItem> myElements;
+    @NotNull private final Map<String, List<ElementItem>> myItemsByName = new HashMap<>();
+    @NotNull private final Map<GradleDslElement, ElementItem> myItemsByElement = new IdentityHashMap<>();
+    private boolean myIndexValid = true;
 
     private ElementList() {
       myElements = new ArrayList<>();
     }
 
+    private void ensureIndex() {
+      if (myIndexValid) {
+        return;
+      }
+      myItemsByName.clear();
+      myItemsByElement.clear();
+      for (int i = 0; i < myElements.size(); i++) {
+        index(myElements.get(i), i);
+      }
+      myIndexValid = true;
+    }
+
+    private void index(@NotNull ElementItem item, int position) {
+      item.myPosition = position;
+      item.myIndexedName = item.myElement.getName();
+      myItemsByName.computeIfAbsent(item.myIndexedName, k -> new ArrayList<>()).add(item);
+      myItemsByElement.putIfAbsent(item.myElement, item);
+    }
+
+    /**
+     * Moves the given item to the entry of the new name of its element, keeping the entry in the order of the list.
+     */
+    private synchronized void reindex(@NotNull ElementItem item) {
+      if (!myIndexValid || item.myIndexedName == null) {
+        // The index is rebuilt with the new name on the next lookup.
+        return;
+      }
+      String name = item.myElement.getName();
+      if (name.equals(item.myIndexedName)) {
+        return;
+      }
+      List<ElementItem> items = myItemsByName.get(item.myIndexedName);
+      if (items == null || !items.remove(item)) {
+        // The item was removed from this list.
+        return;
+      }
+      if (items.isEmpty()) {
+        myItemsByName.remove(item.myIndexedName);
+      }
+      List<ElementItem> newItems = myItemsByName.computeIfAbsent(name, k -> new ArrayList<>());
+      newItems.add(positionOf(newItems, item.myPosition), item);
+      item.myIndexedName = name;
+    }
+
+    /**
+     * @return the number of the given items, which are in the order of the list, that are at or before the given position
+     */
+    private static int positionOf(@NotNull List<ElementItem> items, int position) {
+      int low = 0;
+      int high = items.size();
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (items.get(middle).myPosition <= position) {
+          low = middle + 1;
+        }
+        else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static boolean isVisible(@NotNull ElementItem item) {
+      return item.myElementState != TO_BE_REMOVED && item.myElementState != HIDDEN;
+    }
+
+    /**
+     * @return the items of elements with the given name in any state, in the order of the list; only to be used while holding the lock
+     */
+    @NotNull
+    private List<ElementItem> getItemsNamed(@NotNull String name) {
+      ensureIndex();
+      return myItemsByName.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * @return the first item of the given element in any state, or null if the element is not in this list; only to be used while
+     * holding the lock
+     */
+    @Nullable
+    private ElementItem getItem(@NotNull GradleDslElement element) {
+      ensureIndex();
+      return myItemsByElement.get(element);
+    }
+
+    /**
+     * @return the state of the first item of the given element, or null if the element is not in this list
+     */
+    @Nullable
+    private synchronized ElementState getState(@NotNull GradleDslElement element) {
+      ElementItem item = getItem(element);
+      return item == null ? null : item.myElementState;
+    }
+
+    /**
+     * @return a copy of the items of this list, to go through without holding the lock
+     */
+    @NotNull
+    private synchronized List<ElementItem> getItems() {
+      return new ArrayList<>(myElements);
+    }
+
+    private synchronized int size() {
+      return myElements.size();
+    }
+
+    @NotNull
+    private synchronized List<GradleDslElement> getOriginalElements() {
+      return myElements.stream().filter(e -> e.myExistsOnFile).map(e -> e.myElement).collect(Collectors.toList());
+    }
+
+    @Nullable
+    private synchronized GradleDslElement getLastOriginalElementNamed(@NotNull String name, @NotNull PropertyType type) {
+      List<ElementItem> items = getItemsNamed(name);
+      for (int i = items.size() - 1; i >= 0; i--) {
+        ElementItem item = items.get(i);
+        if (item.myExistsOnFile && item.myElement.getElementType() == type) {
+          return item.myElement;
+        }
+      }
+      return null;
+    }
+
     private void forEach(@NotNull Consumer<ElementItem> func) {
-      myElements.forEach(func);
+      getItems().forEach(func);
     }
 
     @NotNull
-    private List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> getElementsWhere(@NotNull Predicate<ElementItem> predicate) {
+    private synchronized List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> getElementsWhere(@NotNull Predicate<ElementItem> predicate) {
       return myElements.stream().filter(e -> e.myElementState != TO_BE_REMOVED && e.myElementState != HIDDEN)
                        .filter(predicate).map(e -> e.myElement).collect(Collectors.toList());
     }
 
+    @NotNull
+    private synchronized List<GradleDslElement> getElementsNamed(@NotNull String name, @NotNull Predicate<ElementItem> predicate) {
+      return getItemsNamed(name).stream().filter(e -> isVisible(e) && predicate.test(e)).map(e -> e.myElement)
+                                .collect(Collectors.toList());
+    }
+
     @Nullable
-    private me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement getElementWhere(@NotNull Predicate<ElementItem> predicate) {
-      // We reduce to get the last element stored, this will be the one we want as it was added last and therefore must appear
-      // later on in the file.
-      return myElements.stream().filter(e -> e.myElementState != TO_BE_REMOVED && e.myElementState != HIDDEN)
-                       .filter(predicate).map(e -> e.myElement).reduce((first, second) -> second).orElse(null);
+    private synchronized GradleDslElement getLastElementNamed(@NotNull String name, @NotNull Predicate<ElementItem> predicate) {
+      // We want the last element stored, as it was added last and therefore must appear later on in the file.
+      List<ElementItem> items = getItemsNamed(name);
+      for (int i = items.size() - 1; i >= 0; i--) {
+        ElementItem item = items.get(i);
+        if (isVisible(item) && predicate.test(item)) {
+          return item.myElement;
+        }
+      }
+      return null;
     }
 
     /**
-     * Return the last element satisfying {@code predicate} that is BEFORE {@code child}. If {@code child} is not a child of
-     * this {@link GradlePropertiesDslElement} then every element is checked and the last one (if any) returned.
+     * Returns the last element with any of the given {@code names}.
      */
     @Nullable
-    private me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement getElementBeforeChildWhere(@NotNull Predicate<ElementItem> predicate,
-                                                                                                          @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement child,
-                                                                                                          boolean includeSelf) {
-      me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement lastElement = null;
-      for (ElementItem i : myElements) {
-        // Skip removed or hidden elements.
-        if (i.myElementState == TO_BE_REMOVED || i.myElementState == HIDDEN) {
-          continue;
-        }
-
-        if (predicate.test(i)) {
-          if (includeSelf || child != i.myElement) {
-            lastElement = i.myElement;
+    private synchronized GradleDslElement getLastElementNamed(@NotNull Collection<String> names) {
+      ElementItem lastItem = null;
+      for (String name : names) {
+        List<ElementItem> items = getItemsNamed(name);
+        for (int i = items.size() - 1; i >= 0; i--) {
+          ElementItem item = items.get(i);
+          if (isVisible(item)) {
+            if (lastItem == null || item.myPosition > lastItem.myPosition) {
+              lastItem = item;
+            }
+            break;
           }
         }
+      }
+      return lastItem == null ? null : lastItem.myElement;
+    }
 
-        if (i.myElement == child) {
-          return lastElement;
+    /**
+     * Return the last element with the given {@code name} satisfying {@code predicate} that is BEFORE {@code child}. If {@code child}
+     * is not a child of this {@link GradlePropertiesDslElement} then every element is checked and the last one (if any) returned.
+     */
+    @Nullable
+    private synchronized GradleDslElement getElementNamedBeforeChild(@NotNull String name,
+                                                        @NotNull Predicate<ElementItem> predicate,
+                                                        @NotNull GradleDslElement child,
+                                                        boolean includeSelf) {
+      List<ElementItem> items = getItemsNamed(name);
+      int end = items.size();
+      ElementItem childItem = myItemsByElement.get(child);
+      // Removed or hidden children don't limit the search.
+      if (childItem != null && isVisible(childItem)) {
+        // Binary search for the first item after the child.
+        end = positionOf(items, childItem.myPosition);
+      }
+      for (int i = end - 1; i >= 0; i--) {
+        ElementItem item = items.get(i);
+        if (isVisible(item) && predicate.test(item) && (includeSelf || item.myElement != child)) {
+          return item.myElement;
         }
       }
-      return lastElement;
+      return null;
     }
 
-    private void addElement(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state, boolean onFile) {
-      myElements.add(new ElementItem(newElement, state, onFile));
+    private synchronized void addElement(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state, boolean onFile) {
+      ElementItem item = new ElementItem(this, newElement, state, onFile);
+      myElements.add(item);
+      if (myIndexValid) {
+        index(item, myElements.size() - 1);
+      }
     }
 
-    private void addElementAtIndex(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state, int index, boolean onFile) {
-      myElements.add(getRealIndex(index, newElement), new ElementItem(newElement, state, onFile));
+    private synchronized void addElementAtIndex(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.ElementState state, int index, boolean onFile) {
+      int realIndex = getRealIndex(index, newElement);
+      if (realIndex == myElements.size()) {
+        addElement(newElement, state, onFile);
+        return;
+      }
+      myElements.add(realIndex, new ElementItem(this, newElement, state, onFile));
+      myIndexValid = false;
     }
 
     // Note: The index position is calculated AFTER the element has been removed from the list.
-    private void moveElementToIndex(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element, int index) {
+    private synchronized void moveElementToIndex(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element, int index) {
       // Find the element.
-      ElementItem item = myElements.stream().filter(e -> e.myElement == element).findFirst().orElse(null);
+      ElementItem item = getItem(element);
       if (item == null) {
         return;
       }
 
       // Remove the element.
-      myElements.remove(item);
+      myElements.remove(item.myPosition);
+      myIndexValid = false;
       // Set every EXISTING element in this tree to MOVED.
       moveElementTree(item);
       // Add the element back at the given index.
@@ -797,7 +987,7 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
      * Converts a given index to a real index that can correctly place elements in myElements. This ignores all elements that should be
      * removed or have been applied.
      */
-    private int getRealIndex(int index, @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element) {
+    private synchronized int getRealIndex(int index, @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element) {
       // If the index is less than zero then clamp it to zero
       if (index <= 0) {
         return 0;
@@ -819,8 +1009,8 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
     }
 
     @Nullable
-    private me.scana.okgradle.internal.dsl.parser.elements.ElementState remove(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element) {
-      ElementItem item = myElements.stream().filter(e -> element == e.myElement).findFirst().orElse(null);
+    private synchronized me.scana.okgradle.internal.dsl.parser.elements.ElementState remove(@NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement element) {
+      ElementItem item = getItem(element);
       if (item == null) {
         return null;
       }
@@ -830,47 +1020,52 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
     }
 
     @Nullable
-    private me.scana.okgradle.internal.dsl.parser.elements.ElementState replaceElement(@Nullable me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement oldElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement) {
-      for (int i = 0; i < myElements.size(); i++) {
-        ElementItem item = myElements.get(i);
-        if (oldElement == item.myElement) {
-          me.scana.okgradle.internal.dsl.parser.elements.ElementState oldState = item.myElementState;
-          item.myElementState = TO_BE_REMOVED;
-          me.scana.okgradle.internal.dsl.parser.elements.ElementState newState = TO_BE_ADDED;
-          if (oldState == APPLIED || oldState == HIDDEN) {
-            newState = oldState;
-          }
-          myElements.add(i, new ElementItem(newElement, newState, false));
-          return oldState;
-        }
+    private synchronized me.scana.okgradle.internal.dsl.parser.elements.ElementState replaceElement(@Nullable me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement oldElement, @NotNull me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement newElement) {
+      ElementItem item = oldElement == null ? null : getItem(oldElement);
+      if (item == null) {
+        return null;
       }
-      return null;
+      me.scana.okgradle.internal.dsl.parser.elements.ElementState oldState = item.myElementState;
+      item.myElementState = TO_BE_REMOVED;
+      me.scana.okgradle.internal.dsl.parser.elements.ElementState newState = TO_BE_ADDED;
+      if (oldState == APPLIED || oldState == HIDDEN) {
+        newState = oldState;
+      }
+      myElements.add(item.myPosition, new ElementItem(this, newElement, newState, false));
+      myIndexValid = false;
+      return oldState;
     }
 
     @NotNull
-    private List<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> removeAll(@NotNull Predicate<ElementItem> filter) {
-      List<ElementItem> toBeRemoved = myElements.stream().filter(filter).collect(Collectors.toList());
+    private synchronized List<GradleDslElement> removeAllNamed(@NotNull String name) {
+      List<ElementItem> toBeRemoved = getItemsNamed(name);
       toBeRemoved.forEach(e -> e.myElementState = TO_BE_REMOVED);
       return toBeRemoved.stream().map(e -> e.myElement).collect(Collectors.toList());
     }
 
-    private void hideAll(@NotNull Predicate<ElementItem> filter) {
-      myElements.stream().filter(filter).forEach(e -> e.myElementState = HIDDEN);
+    private synchronized void hideAllNamed(@NotNull String name) {
+      getItemsNamed(name).forEach(e -> e.myElementState = HIDDEN);
     }
 
-    private boolean isEmpty() {
+    private synchronized boolean isEmpty() {
       return myElements.isEmpty();
     }
 
+    // The following methods call into the elements of this list on a copy of its items, see the class documentation.
+
     private void reset() {
-      for (Iterator<ElementItem> i = myElements.iterator(); i.hasNext(); ) {
-        ElementItem item = i.next();
-        item.myElement.resetState();
-        if (item.myElementState == TO_BE_REMOVED) {
-          item.myElementState = EXISTING;
-        }
-        if (item.myElementState == TO_BE_ADDED) {
-          i.remove();
+      getItems().forEach(item -> item.myElement.resetState());
+      synchronized (this) {
+        for (Iterator<ElementItem> i = myElements.iterator(); i.hasNext(); ) {
+          ElementItem item = i.next();
+          if (item.myElementState == TO_BE_REMOVED) {
+            item.myElementState = EXISTING;
+          }
+          if (item.myElementState == TO_BE_ADDED) {
+            i.remove();
+            item.release();
+            myIndexValid = false;
+          }
         }
       }
     }
@@ -880,13 +1075,9 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
      * Once {@code removeFunc} has been run, the element is removed from the list.
      */
     private void removeElements(@NotNull Consumer<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> removeFunc) {
-      for (Iterator<ElementItem> i = myElements.iterator(); i.hasNext(); ) {
-        ElementItem item = i.next();
-        if (item.myElementState == TO_BE_REMOVED) {
-          removeFunc.accept(item.myElement);
-          i.remove();
-        }
-      }
+      List<ElementItem> removed = getItemsInState(TO_BE_REMOVED);
+      removed.forEach(item -> removeFunc.accept(item.myElement));
+      removeItems(removed);
     }
 
     /**
@@ -895,32 +1086,54 @@ public abstract class GradlePropertiesDslElement extends GradleDslElementImpl {
      * is removed.
      */
     private void createElements(@NotNull Predicate<me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement> addFunc) {
-      for (Iterator<ElementItem> i = myElements.iterator(); i.hasNext(); ) {
-        ElementItem item = i.next();
-        if (item.myElementState == TO_BE_ADDED) {
-          if (addFunc.test(item.myElement)) {
-            item.myElementState = EXISTING;
-          }
-          else {
-            i.remove();
-          }
-        }
+      List<ElementItem> created = new ArrayList<>();
+      List<ElementItem> failed = new ArrayList<>();
+      for (ElementItem item : getItemsInState(TO_BE_ADDED)) {
+        (addFunc.test(item.myElement) ? created : failed).add(item);
       }
+      synchronized (this) {
+        created.forEach(item -> item.myElementState = EXISTING);
+      }
+      removeItems(failed);
     }
 
     /**
      * Runs {@code func} across all of the elements stored in this list.
      */
     private void applyElements(@NotNull Consumer<GradleDslElement> func) {
-      myElements.stream().filter(e -> e.myElementState != APPLIED).map(e -> e.myElement).forEach(func);
+      List<GradleDslElement> elements;
+      synchronized (this) {
+        elements = myElements.stream().filter(e -> e.myElementState != APPLIED).map(e -> e.myElement).collect(Collectors.toList());
+      }
+      elements.forEach(func);
+    }
+
+    @NotNull
+    private synchronized List<ElementItem> getItemsInState(@NotNull ElementState state) {
+      return myElements.stream().filter(e -> e.myElementState == state).collect(Collectors.toList());
+    }
+
+    private synchronized void removeItems(@NotNull List<ElementItem> items) {
+      if (items.isEmpty()) {
+        return;
+      }
+      Set<ElementItem> toBeRemoved = Collections.newSetFromMap(new IdentityHashMap<>());
+      toBeRemoved.addAll(items);
+      myElements.removeIf(toBeRemoved::contains);
+      items.forEach(ElementItem::release);
+      myIndexValid = false;
     }
 
     /**
      * Clears ALL element in this element list. This clears the whole list without affecting state. If you actually want to remove
-     * elements from the file use {@link #removeAll(Predicate)}.
+     * elements from the file use {@link #removeAllNamed(String)}.
      */
-    private void clear() {
+    private synchronized void clear() {
+      myElements.forEach(ElementItem::release);
       myElements.clear();
+      myItemsByName.clear();
+      myItemsByElement.clear();
+      myIndexValid = true;
     }
 
     /**
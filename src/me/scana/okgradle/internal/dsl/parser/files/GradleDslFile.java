@@ -22,7 +22,9 @@ import me.scana.okgradle.internal.dsl.api.BuildModelNotification;
 import me.scana.okgradle.internal.dsl.parser.BuildModelContext;
 import me.scana.okgradle.internal.dsl.parser.GradleDslParser;
 import me.scana.okgradle.internal.dsl.parser.GradleDslWriter;
+import me.scana.okgradle.internal.dsl.parser.GradleReferenceInjection;
 import me.scana.okgradle.internal.dsl.parser.apply.ApplyDslElement;
+import me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement;
 import me.scana.okgradle.internal.dsl.parser.elements.GradleNameElement;
 import me.scana.okgradle.internal.dsl.parser.elements.GradlePropertiesDslElement;
 import me.scana.okgradle.internal.dsl.parser.groovy.GroovyDslParser;
@@ -54,7 +56,8 @@ import org.jetbrains.plugins.groovy.lang.psi.GroovyFile;
 public abstract class GradleDslFile extends GradlePropertiesDslElement {
   @NotNull private final VirtualFile myFile;
   @NotNull private final Project myProject;
-  @NotNull private final Set<GradleDslFile> myChildModuleDslFiles = Sets.newHashSet();
+  // Sibling module files are parsed in parallel and add themselves here at the same time.
+  @NotNull private final Set<GradleDslFile> myChildModuleDslFiles = Sets.newConcurrentHashSet();
   @NotNull private final GradleDslWriter myGradleDslWriter;
   @NotNull private final GradleDslParser myGradleDslParser;
 
@@ -105,8 +108,8 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
 
   public void parse() {
     myGradleDslParser.parse();
-    // Attempt to resolve all the remaining dependencies. Ideally we would not have to do this here, but when elements
-    // are created there parents are not necessarily attached to the tree. This means references to their siblings will not
+    // Attempt to resolve the remaining dependencies on elements of this file. Ideally we would not have to do this here, but when
+    // elements are created there parents are not necessarily attached to the tree. This means references to their siblings will not
     // be resolved, for example take:
     //  ext.vars = [
     //    key: "value",
@@ -114,8 +117,8 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
     //  ]
     //
     // When key1 is parsed it can't find ext.vars.key. This is a bug with the parser that should be fixed in the future.
-    // For now however we call resolveAll() here.
-    getContext().getDependencyManager().resolveAll();
+    // For now however we retry the dependencies referring to names defined in this file, the others can't have changed.
+    getContext().getDependencyManager().resolveWith(this);
   }
 
   @NotNull
@@ -143,6 +146,24 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
     myParentModuleDslFile.myChildModuleDslFiles.add(this);
   }
 
+  /**
+   * Removes this file from the children of its parent module file and drops the references of its elements to other files, both
+   * resolved and unresolved. Used when parsing this file was cancelled or it is no longer cached.
+   */
+  public void discard() {
+    if (myParentModuleDslFile != null) {
+      myParentModuleDslFile.myChildModuleDslFiles.remove(this);
+      myParentModuleDslFile = null;
+    }
+    for (GradleReferenceInjection injection : getResolvedVariables()) {
+      GradleDslElement toBeInjected = injection.getToBeInjected();
+      if (toBeInjected != null && toBeInjected.getDslFile() != this) {
+        toBeInjected.unregisterDependent(injection);
+      }
+    }
+    myBuildModelContext.getDependencyManager().unregisterUnresolvedReferences(this);
+  }
+
   @Nullable
   public GradleDslFile getParentModuleDslFile() {
     return myParentModuleDslFile;
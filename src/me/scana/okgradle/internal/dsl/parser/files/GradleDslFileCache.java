@@ -15,6 +15,7 @@
  */
 package me.scana.okgradle.internal.dsl.parser.files;
 
+import static com.android.SdkConstants.FN_GRADLE_PROPERTIES;
 import static com.android.tools.idea.Projects.getBaseDirPath;
 import static com.android.tools.idea.gradle.util.GradleUtil.getGradleSettingsFile;
 import static com.intellij.internal.psiView.stubtree.StubViewerPsiBasedTree.LOG;
@@ -26,15 +27,32 @@ import me.scana.okgradle.internal.dsl.parser.files.GradleDslFile;
 import me.scana.okgradle.internal.dsl.parser.files.GradlePropertiesFile;
 import me.scana.okgradle.internal.dsl.parser.files.GradleSettingsFile;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeAnyChangeAbstractAdapter;
+import com.intellij.util.PathUtil;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -42,10 +60,16 @@ import org.jetbrains.annotations.Nullable;
  * Cache to store a mapping between file paths and their respective {@link GradleDslFileCache} objects, its main purpose it to
  * prevent the parsing of a file more than once. In large projects without caching the parsed file we can end up parsing the same
  * file hundreds of times.
+ *
+ * <p>A cache that {@link #listenForChanges(Disposable) listens for changes} can live as long as the project. It remembers the
+ * modification stamp each file was parsed at and {@link #removeStaleFiles(GradleDslFile)} drops the files that changed since.
  */
 public class GradleDslFileCache {
   @NotNull private Project myProject;
-  @NotNull private Map<String, me.scana.okgradle.internal.dsl.parser.files.GradleDslFile> myParsedBuildFiles = new HashMap<>();
+  @NotNull private Map<String, me.scana.okgradle.internal.dsl.parser.files.GradleDslFile> myParsedBuildFiles = new ConcurrentHashMap<>();
+  @NotNull private final Map<String, Long> myModificationStamps = new ConcurrentHashMap<>();
+  @NotNull private final Set<String> myChangedUrls = ConcurrentHashMap.newKeySet();
+  private volatile boolean myFilesCreatedOrDeleted;
 
   public GradleDslFileCache(@NotNull Project project) {
     myProject = project;
@@ -53,6 +77,134 @@ public class GradleDslFileCache {
 
   public void clearAllFiles() {
     myParsedBuildFiles.clear();
+    myModificationStamps.clear();
+    myChangedUrls.clear();
+    myFilesCreatedOrDeleted = false;
+  }
+
+  /**
+   * Marks cached files as changed whenever their contents change on disk or through PSI, until {@code parentDisposable} is disposed.
+   * Gradle files of this project created, deleted, moved or renamed mark the whole cache as changed, as they can add or remove modules
+   * and properties.
+   */
+  public void listenForChanges(@NotNull Disposable parentDisposable) {
+    myProject.getMessageBus().connect(parentDisposable).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFileContentChangeEvent) {
+            markChanged(VfsUtilCore.pathToUrl(event.getPath()));
+          }
+          else if (isGradleFile(event.getPath()) && isInProject(event.getPath())) {
+            myFilesCreatedOrDeleted = true;
+          }
+        }
+      }
+    });
+    PsiManager.getInstance(myProject).addPsiTreeChangeListener(new PsiTreeAnyChangeAbstractAdapter() {
+      @Override
+      protected void onChange(@Nullable PsiFile file) {
+        VirtualFile virtualFile = file == null ? null : file.getViewProvider().getVirtualFile();
+        if (virtualFile != null) {
+          markChanged(virtualFile.getUrl());
+        }
+      }
+    }, parentDisposable);
+  }
+
+  private void markChanged(@NotNull String url) {
+    if (myParsedBuildFiles.containsKey(url)) {
+      myChangedUrls.add(url);
+    }
+  }
+
+  private static boolean isGradleFile(@NotNull String path) {
+    return path.endsWith(".gradle") || path.endsWith(".gradle.kts") || PathUtil.getFileName(path).equals(FN_GRADLE_PROPERTIES);
+  }
+
+  private boolean isInProject(@NotNull String path) {
+    // File events come from every open project.
+    String basePath = myProject.getBasePath();
+    if (basePath != null && FileUtil.isAncestor(basePath, path, false)) {
+      return true;
+    }
+    for (VirtualFile root : ProjectRootManager.getInstance(myProject).getContentRoots()) {
+      if (FileUtil.isAncestor(root.getPath(), path, false)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops the files that changed since they were parsed, or that hold changes which have not been applied. A changed module build
+   * file that no other cached file applies or is a parent of is dropped on its own. Any other change drops every file, since the
+   * remaining ones may have been parsed using the old contents of the changed one.
+   *
+   * @param rootProjectFile the build file of the root project, if it was parsed
+   * @return the dropped files, or null if all files were dropped
+   */
+  @Nullable
+  public List<GradleDslFile> removeStaleFiles(@Nullable GradleDslFile rootProjectFile) {
+    if (myFilesCreatedOrDeleted) {
+      clearAllFiles();
+      return null;
+    }
+    List<Map.Entry<String, GradleDslFile>> staleFiles = new ArrayList<>();
+    Set<GradleDslFile> appliedFiles = new HashSet<>();
+    for (Map.Entry<String, GradleDslFile> entry : myParsedBuildFiles.entrySet()) {
+      if (isStale(entry.getKey(), entry.getValue())) {
+        staleFiles.add(entry);
+      }
+      appliedFiles.addAll(entry.getValue().getApplyDslElement());
+    }
+    if (staleFiles.isEmpty()) {
+      return ImmutableList.of();
+    }
+    for (Map.Entry<String, GradleDslFile> entry : staleFiles) {
+      GradleDslFile file = entry.getValue();
+      if (!(file instanceof GradleBuildFile) || file == rootProjectFile || !file.getChildModuleDslFiles().isEmpty() ||
+          appliedFiles.contains(file)) {
+        clearAllFiles();
+        return null;
+      }
+    }
+    List<GradleDslFile> removedFiles = new ArrayList<>();
+    for (Map.Entry<String, GradleDslFile> entry : staleFiles) {
+      myParsedBuildFiles.remove(entry.getKey());
+      myModificationStamps.remove(entry.getKey());
+      myChangedUrls.remove(entry.getKey());
+      entry.getValue().discard();
+      removedFiles.add(entry.getValue());
+    }
+    return removedFiles;
+  }
+
+  private boolean isStale(@NotNull String url, @NotNull GradleDslFile dslFile) {
+    VirtualFile file = dslFile.getFile();
+    if (myChangedUrls.contains(url) || !file.isValid() || dslFile.isModified()) {
+      return true;
+    }
+    Long stamp = myModificationStamps.get(url);
+    return stamp == null || stamp != getModificationStamp(file);
+  }
+
+  private static long getModificationStamp(@NotNull VirtualFile file) {
+    // Unsaved edits only change the document, saved ones change both.
+    Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    return document != null ? document.getModificationStamp() : file.getModificationStamp();
+  }
+
+  @NotNull
+  private GradleDslFile cache(@NotNull String url, @NotNull GradleDslFile dslFile, long modificationStamp) {
+    GradleDslFile cachedFile = myParsedBuildFiles.putIfAbsent(url, dslFile);
+    if (cachedFile != null) {
+      // Another thread parsed the same file meanwhile, keep the first one as others may already refer to it.
+      dslFile.discard();
+      return cachedFile;
+    }
+    myModificationStamps.put(url, modificationStamp);
+    return dslFile;
   }
 
   @NotNull
@@ -62,8 +214,8 @@ public class GradleDslFileCache {
                                                                                              boolean isApplied) {
     me.scana.okgradle.internal.dsl.parser.files.GradleDslFile dslFile = myParsedBuildFiles.get(file.getUrl());
     if (dslFile == null) {
-      dslFile = GradleBuildModelImpl.parseBuildFile(file, myProject, name, context, isApplied);
-      myParsedBuildFiles.put(file.getUrl(), dslFile);
+      long modificationStamp = getModificationStamp(file);
+      dslFile = cache(file.getUrl(), GradleBuildModelImpl.parseBuildFile(file, myProject, name, context, isApplied), modificationStamp);
     }
     else if (!(dslFile instanceof me.scana.okgradle.internal.dsl.parser.files.GradleBuildFile)) {
       throw new IllegalStateException("Found wrong type for build file in cache!");
@@ -74,6 +226,12 @@ public class GradleDslFileCache {
 
   public void putBuildFile(@NotNull String name, @NotNull me.scana.okgradle.internal.dsl.parser.files.GradleDslFile buildFile) {
     myParsedBuildFiles.put(name, buildFile);
+    myModificationStamps.put(name, getModificationStamp(buildFile.getFile()));
+  }
+
+  @NotNull
+  public GradleDslFile putBuildFileIfAbsent(@NotNull String name, @NotNull GradleDslFile buildFile) {
+    return cache(name, buildFile, getModificationStamp(buildFile.getFile()));
   }
 
   @Nullable
@@ -94,9 +252,10 @@ public class GradleDslFileCache {
   public GradleSettingsFile getOrCreateSettingsFile(@NotNull VirtualFile settingsFile, @NotNull BuildModelContext context) {
     me.scana.okgradle.internal.dsl.parser.files.GradleDslFile dslFile = myParsedBuildFiles.get(settingsFile.getUrl());
     if (dslFile == null) {
+      long modificationStamp = getModificationStamp(settingsFile);
       dslFile = new GradleSettingsFile(settingsFile, myProject, "settings", context);
       dslFile.parse();
-      myParsedBuildFiles.put(settingsFile.getUrl(), dslFile);
+      dslFile = cache(settingsFile.getUrl(), dslFile, modificationStamp);
     }
     else if (!(dslFile instanceof GradleSettingsFile)) {
       throw new IllegalStateException("Found wrong type for settings file in cache!");
@@ -109,9 +268,9 @@ public class GradleDslFileCache {
     me.scana.okgradle.internal.dsl.parser.files.GradleDslFile dslFile = myParsedBuildFiles.get(file.getUrl());
     if (dslFile == null) {
       try {
+        long modificationStamp = getModificationStamp(file);
         Properties properties = getProperties(file);
-        dslFile = new GradlePropertiesFile(properties, file, myProject, moduleName, context);
-        myParsedBuildFiles.put(file.getUrl(), dslFile);
+        dslFile = cache(file.getUrl(), new GradlePropertiesFile(properties, file, myProject, moduleName, context), modificationStamp);
       } catch (IOException e) {
         LOG.warn("Failed to process properties file " + file.getPath(), e);
         return null;
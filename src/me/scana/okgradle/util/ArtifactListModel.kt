@@ -2,33 +2,211 @@ package me.scana.okgradle.util
 
 import me.scana.okgradle.data.repository.Artifact
 import javax.swing.AbstractListModel
+import javax.swing.SwingUtilities
 
-class ArtifactListModel : AbstractListModel<Artifact>() {
+/**
+ * List model for results that keep streaming in. Changes requested between two EDT
+ * events are applied together and reported with as few interval events as possible.
+ * Artifacts are shown once per `groupId:name`, in whichever version came last in a snapshot.
+ * All methods except [add], [addAll] and [replaceAll] have to be called on the EDT.
+ */
+class ArtifactListModel(
+        private val scheduleFlush: (Runnable) -> Unit = { SwingUtilities.invokeLater(it) }
+) : AbstractListModel<Artifact>() {
 
-    private val artifacts = LinkedHashSet<Artifact>()
+    private val artifacts = ArrayList<Artifact>()
+    private val present = HashSet<String>()
+
+    private val lock = Any()
+    private var pendingSnapshot: List<Artifact>? = null
+    private val pendingAdditions = ArrayList<Artifact>()
+    private var flushScheduled = false
 
     fun add(element: Artifact) {
-        artifacts.add(element)
-        val index = artifacts.size - 1
-        fireIntervalAdded(this, index, index)
+        addAll(listOf(element))
     }
 
     fun addAll(elements: List<Artifact>) {
-        val previousSize = artifacts.size
-        artifacts.addAll(elements)
-        fireIntervalAdded(this, previousSize, previousSize + artifacts.size)
+        synchronized(lock) {
+            pendingAdditions.addAll(elements)
+            scheduleFlushIfNeeded()
+        }
+    }
+
+    /**
+     * Makes the model show [elements]. Artifacts already displayed in the same relative
+     * order stay in place, the new ones are inserted around them. Displayed artifacts that
+     * [elements] ranks differently are moved, as few of them as possible.
+     */
+    fun replaceAll(elements: List<Artifact>) {
+        synchronized(lock) {
+            pendingSnapshot = elements
+            pendingAdditions.clear()
+            scheduleFlushIfNeeded()
+        }
     }
 
     fun clear() {
+        synchronized(lock) {
+            pendingSnapshot = null
+            pendingAdditions.clear()
+        }
+        removeAll()
+    }
+
+    private fun removeAll() {
+        if (artifacts.isEmpty()) {
+            return
+        }
+        val lastIndex = artifacts.size - 1
         artifacts.clear()
-        fireIntervalRemoved(this, 0, artifacts.size)
+        present.clear()
+        fireIntervalRemoved(this, 0, lastIndex)
     }
 
     override fun getElementAt(index: Int): Artifact {
-        return artifacts.elementAt(index)
+        return artifacts[index]
     }
 
     override fun getSize(): Int {
         return artifacts.size
     }
-}
\ No newline at end of file
+
+    private fun scheduleFlushIfNeeded() {
+        if (!flushScheduled) {
+            flushScheduled = true
+            scheduleFlush(Runnable { flush() })
+        }
+    }
+
+    private fun flush() {
+        val snapshot: List<Artifact>?
+        val additions: List<Artifact>
+        synchronized(lock) {
+            snapshot = pendingSnapshot
+            additions = ArrayList(pendingAdditions)
+            pendingSnapshot = null
+            pendingAdditions.clear()
+            flushScheduled = false
+        }
+        val events = IntervalEvents()
+        snapshot?.let { merge(it, events) }
+        additions.forEach { insert(it, artifacts.size, events) }
+        events.fire()
+    }
+
+    private fun merge(snapshot: List<Artifact>, events: IntervalEvents) {
+        val wanted = snapshot.mapTo(HashSet()) { key(it) }
+        if (artifacts.any { key(it) !in wanted }) {
+            removeAll()
+        }
+        removeMoved(snapshot)
+        var position = 0
+        for (element in snapshot) {
+            if (position < artifacts.size && key(artifacts[position]) == key(element)) {
+                replace(position, element, events)
+                position++
+            } else if (insert(element, position, events)) {
+                position++
+            }
+        }
+    }
+
+    /**
+     * Takes out the displayed artifacts that are not part of the longest run already in [snapshot] order,
+     * so that inserting the snapshot puts them back where it ranks them.
+     */
+    private fun removeMoved(snapshot: List<Artifact>) {
+        val ranks = HashMap<String, Int>()
+        snapshot.forEachIndexed { index, element -> ranks.putIfAbsent(key(element), index) }
+        val kept = longestIncreasingRun(artifacts.map { ranks.getValue(key(it)) })
+        var index = artifacts.size - 1
+        while (index >= 0) {
+            if (kept[index]) {
+                index--
+                continue
+            }
+            val last = index
+            while (index >= 0 && !kept[index]) {
+                present.remove(key(artifacts.removeAt(index)))
+                index--
+            }
+            fireIntervalRemoved(this, index + 1, last)
+        }
+    }
+
+    /**
+     * Marks the elements of the longest strictly increasing subsequence of [values].
+     */
+    private fun longestIncreasingRun(values: List<Int>): BooleanArray {
+        val tails = IntArray(values.size)
+        val previous = IntArray(values.size)
+        var length = 0
+        for (i in values.indices) {
+            var low = 0
+            var high = length
+            while (low < high) {
+                val middle = (low + high) ushr 1
+                if (values[tails[middle]] < values[i]) low = middle + 1 else high = middle
+            }
+            previous[i] = if (low > 0) tails[low - 1] else -1
+            tails[low] = i
+            if (low == length) {
+                length++
+            }
+        }
+        val kept = BooleanArray(values.size)
+        var i = if (length > 0) tails[length - 1] else -1
+        while (i >= 0) {
+            kept[i] = true
+            i = previous[i]
+        }
+        return kept
+    }
+
+    private fun replace(index: Int, element: Artifact, events: IntervalEvents) {
+        if (artifacts[index] != element) {
+            // Listeners have to be told about the insertions before this change first.
+            events.fire()
+            artifacts[index] = element
+            fireContentsChanged(this, index, index)
+        }
+    }
+
+    private fun insert(element: Artifact, position: Int, events: IntervalEvents): Boolean {
+        if (!present.add(key(element))) {
+            return false
+        }
+        events.inserting(position)
+        artifacts.add(position, element)
+        return true
+    }
+
+    private fun key(artifact: Artifact) = "${artifact.groupId}:${artifact.name}"
+
+    /**
+     * Joins insertions that land next to each other into a single interval event.
+     * Has to be told about every insertion before it happens.
+     */
+    private inner class IntervalEvents {
+        private var first = -1
+        private var last = -1
+
+        fun inserting(index: Int) {
+            if (first != -1 && index in first..last + 1) {
+                last++
+                return
+            }
+            fire()
+            first = index
+            last = index
+        }
+
+        fun fire() {
+            if (first != -1) {
+                fireIntervalAdded(this@ArtifactListModel, first, last)
+                first = -1
+            }
+        }
+    }
+}
@@ -2,6 +2,36 @@ package me.scana.okgradle.util
 
 import com.google.gson.Gson
 import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
 import java.io.Reader
 
-inline fun <reified T> Gson.fromJson(reader: Reader) = this.fromJson<T>(reader, object : TypeToken<T>() {}.type)!!
\ No newline at end of file
+inline fun <reified T> Gson.fromJson(reader: Reader) = this.fromJson<T>(reader, object : TypeToken<T>() {}.type)!!
+
+/**
+ * Reads an object, calling [action] with the name of each property. [action] has to consume the value.
+ */
+inline fun JsonReader.forEachProperty(action: (name: String) -> Unit) {
+    beginObject()
+    while (hasNext()) {
+        action(nextName())
+    }
+    endObject()
+}
+
+/**
+ * Reads an array of strings, returning only its first element.
+ */
+fun JsonReader.nextFirstString(): String? {
+    var first: String? = null
+    beginArray()
+    while (hasNext()) {
+        if (first == null && peek() == JsonToken.STRING) {
+            first = nextString()
+        } else {
+            skipValue()
+        }
+    }
+    endArray()
+    return first
+}
@@ -2,12 +2,15 @@ package me.scana.okgradle.util
 
 import com.intellij.ui.components.JBList
 import io.reactivex.Observable
+import io.reactivex.Scheduler
 import io.reactivex.disposables.Disposables
+import io.reactivex.schedulers.Schedulers
 import java.awt.Color
 import java.awt.Graphics
 import java.awt.Graphics2D
 import java.awt.RenderingHints
 import java.awt.event.KeyEvent
+import java.util.concurrent.Executor
 import javax.swing.JComponent
 import javax.swing.JPopupMenu
 import javax.swing.JTextField
@@ -17,6 +20,7 @@ import javax.swing.event.DocumentListener
 import javax.swing.event.ListSelectionListener
 
 
+val edtScheduler: Scheduler = Schedulers.from(Executor { SwingUtilities.invokeLater(it) })
 
 class HintTextField(var hint: String = "") : JTextField() {
     override fun paint(g: Graphics?) {
@@ -87,6 +91,18 @@ fun JComponent.onKeyPress(keyCode: Int, action: () -> Unit)  {
     })
 }
 
+fun JComponent.observeKeyPress(keyCode: Int): Observable<KeyEvent> = Observable.create {
+    val listener = object : SimpleKeyListener() {
+        override fun keyReleased(e: KeyEvent) {
+            if (e.keyCode == keyCode) {
+                it.onNext(e)
+            }
+        }
+    }
+    addKeyListener(listener)
+    it.setDisposable(Disposables.fromAction { removeKeyListener(listener) })
+}
+
 fun JComponent.singleOnKeyPress(keyCode: Int, action: () -> Unit) {
     addKeyListener(object : SimpleKeyListener() {
         override fun keyReleased(e: KeyEvent) {
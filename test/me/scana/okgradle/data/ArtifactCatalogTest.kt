@@ -0,0 +1,55 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.Artifact
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class ArtifactCatalogTest {
+
+    private val catalog = ArtifactCatalog().apply {
+        replaceAll(mapOf(
+                "app/build.gradle" to listOf(
+                        Artifact("com.squareup.okhttp3", "okhttp", "3.14.2"),
+                        Artifact("com.squareup.okhttp3", "logging-interceptor", "3.14.2")
+                ),
+                "lib/build.gradle" to listOf(
+                        Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"),
+                        Artifact("io.reactivex.rxjava2", "rxjava", "2.2.12")
+                )
+        ))
+    }
+
+    @Test
+    fun `finds the highest version used by any module`() {
+        assertEquals(listOf("com.squareup.okhttp3:okhttp:4.2.0"), catalog.find("okhttp", 10).take(1).map { it.toString() })
+    }
+
+    @Test
+    fun `lists everything for an empty query`() {
+        assertEquals(listOf("logging-interceptor", "okhttp", "rxjava"), catalog.find("", 10).map { it.name })
+    }
+
+    @Test
+    fun `replaces artifacts of a changed file only`() {
+        catalog.update("lib/build.gradle", listOf(Artifact("io.reactivex.rxjava2", "rxjava", "2.2.13")))
+
+        assertEquals(
+                listOf("com.squareup.okhttp3:logging-interceptor:3.14.2", "com.squareup.okhttp3:okhttp:3.14.2", "io.reactivex.rxjava2:rxjava:2.2.13"),
+                catalog.artifacts().map { it.toString() }
+        )
+    }
+
+    @Test
+    fun `knows build files of nested modules`() {
+        catalog.update("/project/build.gradle", emptyList())
+        catalog.update("/project/lib/build.gradle", emptyList())
+        catalog.update("/project/lib/core/build.gradle", emptyList())
+
+        assertTrue(catalog.hasFilesNestedIn("/project"))
+        assertTrue(catalog.hasFilesNestedIn("/project/lib"))
+        assertFalse(catalog.hasFilesNestedIn("/project/lib/core"))
+        assertFalse(catalog.hasFilesNestedIn("/project/li"))
+    }
+}
@@ -136,4 +136,22 @@ class BintrayRepositoryTest {
         assertEquals("commons-io", artifact.name)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `stops reading after max results`() {
+        mockOkHttpClient.returnsJson(
+                """
+                    [
+                        { "name": "commons-io:commons-io", "versions": [ "2.4", "2.3" ] },
+                        { "name": "org.carlspring.commons:commons-io", "versions": [ "1.1" ] },
+                        { "name": "org.clojars.amit:commons-io", "versions": [ "1.4.0" ] }
+                    ]
+                """.trimIndent()
+        )
+        val cappedRepository = BintrayRepository(networkClient, gson, maxResults = 2)
+
+        val result = cappedRepository.search("commons-io").blockingGet() as SearchResult.Success
+
+        assertEquals(listOf("commons-io", "org.carlspring.commons"), result.artifacts.map { it.groupId })
+    }
+
+}
@@ -0,0 +1,58 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.GoogleRepository
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.SearchResult
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class GoogleRepositoryTest {
+
+    val mockOkHttpClient = MockOkHttpClient()
+
+    val networkClient = NetworkClient(mockOkHttpClient.instance())
+
+    val repository = GoogleRepository(networkClient)
+
+    @Test
+    fun `resolves versions of a limited number of matches without the index`() {
+        val result = repository.search("com").blockingGet() as SearchResult.Success
+
+        assertTrue(result.artifacts.size > GoogleRepository.MAX_RESOLVED_VERSIONS)
+        assertEquals(GoogleRepository.MAX_RESOLVED_VERSIONS, mockOkHttpClient.requestCount())
+    }
+
+    @Test
+    fun `shows versions resolved by earlier searches`() {
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/com/google/firebase/firebase-perf/maven-metadata.xml",
+                "<metadata><versioning><release>19.0.0</release></versioning></metadata>"
+        )
+        repository.search("firebase-perf").blockingGet()
+
+        val result = repository.search("com").blockingGet() as SearchResult.Success
+
+        assertEquals("19.0.0", result.artifacts.single { it.name == "firebase-perf" }.version)
+    }
+
+    @Test
+    fun `refines results of a shorter query`() {
+        val result = SearchResult.Success(listOf(artifact("firebase-core"), artifact("firebase-perf")))
+
+        val refined = repository.refine(result, "firebase-p")
+
+        assertEquals(listOf(artifact("firebase-perf")), refined?.artifacts)
+    }
+
+    @Test
+    fun `searches again when nothing of a shorter query matches`() {
+        val similarNames = SearchResult.Success(listOf(artifact("firebase-core"), artifact("firebase-perf")))
+
+        assertNull(repository.refine(similarNames, "firebsae"))
+    }
+
+    private fun artifact(name: String) = Artifact("com.google.firebase", name, "1.0.0")
+}
@@ -0,0 +1,120 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.FallbackCacheControlInterceptor
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.NetworkResult
+import okhttp3.Cache
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class HttpCacheTest {
+
+    companion object {
+        private const val CACHE_SIZE_IN_BYTES = 1024L * 1024L
+        private const val FALLBACK_MAX_AGE_IN_SECONDS = 60
+        private const val MAX_STALE_IN_SECONDS = 3600
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val server = MockWebServer()
+
+    private lateinit var okHttpClient: OkHttpClient
+
+    @Before
+    fun setUp() {
+        server.start()
+        okHttpClient = OkHttpClient.Builder()
+                .cache(Cache(temporaryFolder.newFolder("http-cache"), CACHE_SIZE_IN_BYTES))
+                .addNetworkInterceptor(FallbackCacheControlInterceptor(FALLBACK_MAX_AGE_IN_SECONDS))
+                .build()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        okHttpClient.cache?.close()
+    }
+
+    @Test
+    fun `serves stale responses and revalidates them once in the background`() {
+        val revalidationAllowed = CountDownLatch(1)
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                if (request.sequenceNumber == 0) {
+                    return MockResponse().setBody("stale").setHeader("Cache-Control", "max-age=0")
+                }
+                revalidationAllowed.await(5, TimeUnit.SECONDS)
+                return MockResponse().setBody("fresh").setHeader("Cache-Control", "max-age=60")
+            }
+        }
+        val networkClient = NetworkClient(okHttpClient, maxStaleInSeconds = MAX_STALE_IN_SECONDS)
+        val request = request()
+
+        assertEquals("stale", networkClient.fetch(request))
+        assertEquals("stale", networkClient.fetch(request))
+        assertEquals("stale", networkClient.fetch(request))
+        revalidationAllowed.countDown()
+
+        assertEquals("fresh", awaitFresh(networkClient, request))
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun `caches responses without cache headers for the fallback max age`() {
+        server.enqueue(MockResponse().setBody("artifacts"))
+        val networkClient = NetworkClient(okHttpClient)
+
+        assertEquals("artifacts", networkClient.fetch(request()))
+        assertEquals("artifacts", networkClient.fetch(request()))
+
+        assertEquals(1, server.requestCount)
+        assertEquals(1, okHttpClient.cache!!.hitCount())
+        okHttpClient.newCall(request()).execute().use {
+            assertEquals("max-age=$FALLBACK_MAX_AGE_IN_SECONDS", it.header("Cache-Control"))
+        }
+    }
+
+    @Test
+    fun `keeps cache headers sent by the server`() {
+        server.enqueue(MockResponse().setBody("first").setHeader("Cache-Control", "no-store"))
+        server.enqueue(MockResponse().setBody("second").setHeader("Cache-Control", "no-store"))
+        val networkClient = NetworkClient(okHttpClient)
+
+        assertEquals("first", networkClient.fetch(request()))
+        assertEquals("second", networkClient.fetch(request()))
+
+        assertEquals(2, server.requestCount)
+    }
+
+    private fun request() = Request.Builder().url(server.url("/search")).build()
+
+    private fun NetworkClient.fetch(request: Request): String {
+        return (execute(request) { string() } as NetworkResult.Success).data
+    }
+
+    private fun awaitFresh(networkClient: NetworkClient, request: Request): String {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        var body = networkClient.fetch(request)
+        while (body != "fresh" && System.nanoTime() < deadline) {
+            Thread.sleep(10)
+            body = networkClient.fetch(request)
+        }
+        assertTrue(body == "fresh", "Stale response was never revalidated")
+        return body
+    }
+}
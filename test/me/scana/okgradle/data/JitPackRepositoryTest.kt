@@ -1,7 +1,6 @@
 package me.scana.okgradle.data
 
 import com.google.gson.Gson
-import com.google.gson.GsonBuilder
 import me.scana.okgradle.data.repository.*
 import org.junit.Test
 import kotlin.test.assertEquals
@@ -14,9 +13,7 @@ class JitPackRepositoryTest {
 
     val networkClient = NetworkClient(mockOkHttpClient.instance())
 
-    val gson: Gson = GsonBuilder()
-            .registerTypeAdapter(Spellcheck::class.java, SpellcheckDeserializer())
-            .create()
+    val gson = Gson()
 
     val repository = JitPackRepository(networkClient, gson)
 
@@ -0,0 +1,65 @@
+package me.scana.okgradle.data
+
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.repository.GoogleRepository
+import me.scana.okgradle.data.repository.MavenMetadataResolver
+import me.scana.okgradle.data.repository.NetworkClient
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class MavenMetadataResolverTest {
+
+    val mockOkHttpClient = MockOkHttpClient()
+
+    val networkClient = NetworkClient(mockOkHttpClient.instance())
+
+    val resolver = MavenMetadataResolver(networkClient, GoogleRepository.GOOGLE_MAVEN_URL, scheduler = Schedulers.trampoline())
+
+    @Test
+    fun `resolves version of every coordinate`() {
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/com/android/support/design/maven-metadata.xml",
+                metadata("28.0.0")
+        )
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/com/android/support/multidex/maven-metadata.xml",
+                metadata("1.0.3")
+        )
+
+        val versions = resolver.resolve(listOf("com.android.support:design", "com.android.support:multidex"))
+
+        assertEquals(
+                mapOf("com.android.support:design" to "28.0.0", "com.android.support:multidex" to "1.0.3"),
+                versions
+        )
+    }
+
+    @Test
+    fun `skips coordinates without metadata`() {
+        val versions = resolver.resolve(listOf("com.android.support:unknown"))
+
+        assertEquals(emptyMap(), versions)
+    }
+
+    @Test
+    fun `gives up when the calling thread is interrupted`() {
+        val resolver = MavenMetadataResolver(networkClient, GoogleRepository.GOOGLE_MAVEN_URL)
+        Thread.currentThread().interrupt()
+
+        val versions = resolver.resolve(listOf("com.android.support:design"))
+
+        assertEquals(emptyMap(), versions)
+        assertTrue(Thread.interrupted())
+    }
+
+    private fun metadata(release: String) = """<?xml version="1.0" encoding="UTF-8"?>
+        <metadata>
+          <groupId>com.android.support</groupId>
+          <versioning>
+            <latest>$release</latest>
+            <release>$release</release>
+          </versioning>
+        </metadata>
+        """.trimIndent()
+}
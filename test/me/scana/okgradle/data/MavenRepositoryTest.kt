@@ -1,6 +1,6 @@
 package me.scana.okgradle.data
 
-import com.google.gson.GsonBuilder
+import com.google.gson.Gson
 import me.scana.okgradle.data.repository.*
 import org.junit.Assert.assertEquals
 import org.junit.Test
@@ -15,9 +15,7 @@ class MavenRepositoryTest {
 
     val networkClient = NetworkClient(mockOkHttpClient.instance())
 
-    val gson = GsonBuilder()
-            .registerTypeAdapter(Spellcheck::class.java, SpellcheckDeserializer())
-            .create()
+    val gson = Gson()
 
     val repository = MavenRepository(networkClient, gson)
 
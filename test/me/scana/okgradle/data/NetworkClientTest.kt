@@ -0,0 +1,163 @@
+package me.scana.okgradle.data
+
+import io.reactivex.observers.TestObserver
+import me.scana.okgradle.data.repository.HedgePolicy
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.NetworkResult
+import okhttp3.Interceptor
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okio.Buffer
+import okio.ForwardingSource
+import okio.buffer
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class NetworkClientTest {
+
+    companion object {
+        private const val HEDGE_DELAY_IN_MILLIS = 50L
+    }
+
+    private val mockClient = MockOkHttpClient()
+    private val request = Request.Builder().url("http://url.com/search").build()
+
+    @Test
+    fun `cancels calls in flight when the search is disposed`() {
+        val started = CountDownLatch(1)
+        val cancelled = CountDownLatch(1)
+        mockClient.answers { chain ->
+            started.countDown()
+            awaitCancellation(chain)
+            cancelled.countDown()
+            throw IOException("Canceled")
+        }
+        val networkClient = NetworkClient(mockClient.instance())
+        val observer = TestObserver<NetworkResult<String>>()
+
+        val search = thread { networkClient.cancellable { networkClient.execute(request) { string() } }.subscribe(observer) }
+        assertTrue(started.await(5, TimeUnit.SECONDS))
+        observer.dispose()
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS))
+        search.join(5000)
+        assertEquals(1L, networkClient.cancelledCallCount)
+        observer.assertNoValues()
+    }
+
+    @Test
+    fun `does not count calls that finished before the search was disposed`() {
+        mockClient.answers { chain -> response(chain, "done") }
+        val networkClient = NetworkClient(mockClient.instance())
+
+        val observer = networkClient.cancellable { networkClient.execute(request) { string() } }.test()
+        observer.dispose()
+
+        assertEquals("done", (observer.values().single() as NetworkResult.Success).data)
+        assertEquals(0L, networkClient.cancelledCallCount)
+    }
+
+    @Test
+    fun `sends no second attempt when the first answers in time`() {
+        val attempts = AtomicInteger()
+        mockClient.answers { chain -> response(chain, "attempt ${attempts.incrementAndGet()}") }
+
+        val result = hedgingClient().execute(request) { string() }
+
+        assertEquals("attempt 1", (result as NetworkResult.Success).data)
+        assertEquals(1, attempts.get())
+    }
+
+    @Test
+    fun `sends a second attempt after the hedge delay and cancels the first`() {
+        val attempts = AtomicInteger()
+        val firstCancelled = CountDownLatch(1)
+        mockClient.answers { chain ->
+            if (attempts.incrementAndGet() == 1) {
+                awaitCancellation(chain)
+                if (chain.call().isCanceled()) {
+                    firstCancelled.countDown()
+                }
+                throw IOException("Canceled")
+            }
+            response(chain, "second")
+        }
+
+        val result = hedgingClient().execute(request) { string() }
+
+        assertEquals("second", (result as NetworkResult.Success).data)
+        assertEquals(2, attempts.get())
+        assertTrue(firstCancelled.await(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun `closes the response of the attempt that lost`() {
+        val attempts = AtomicInteger()
+        val loserClosed = CountDownLatch(1)
+        mockClient.answers { chain ->
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(HEDGE_DELAY_IN_MILLIS * 4)
+                val body = object : ForwardingSource(Buffer().writeUtf8("first")) {
+                    override fun close() {
+                        loserClosed.countDown()
+                        super.close()
+                    }
+                }.buffer().asResponseBody("text/plain".toMediaType())
+                return@answers response(chain, "").newBuilder().body(body).build()
+            }
+            response(chain, "second")
+        }
+
+        val result = hedgingClient().execute(request) { string() }
+
+        assertEquals("second", (result as NetworkResult.Success).data)
+        assertTrue(loserClosed.await(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun `fails when both attempts fail`() {
+        val attempts = AtomicInteger()
+        mockClient.answers {
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(HEDGE_DELAY_IN_MILLIS * 2)
+                throw IOException("first")
+            }
+            throw IOException("second")
+        }
+
+        val result = hedgingClient().execute(request) { string() }
+
+        assertTrue((result as NetworkResult.Failure).throwable is IOException)
+        assertEquals(2, attempts.get())
+    }
+
+    private fun hedgingClient(): NetworkClient {
+        val hedgePolicy = HedgePolicy(minSamples = 1).apply { record(request.url.host, HEDGE_DELAY_IN_MILLIS) }
+        return NetworkClient(mockClient.instance(), hedgePolicy)
+    }
+
+    private fun awaitCancellation(chain: Interceptor.Chain) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!chain.call().isCanceled() && System.nanoTime() < deadline) {
+            Thread.sleep(10)
+        }
+    }
+
+    private fun response(chain: Interceptor.Chain, body: String) = Response.Builder()
+            .code(200)
+            .body(body.toResponseBody("text/plain".toMediaType()))
+            .protocol(Protocol.HTTP_1_1)
+            .message("")
+            .request(chain.request())
+            .build()
+}
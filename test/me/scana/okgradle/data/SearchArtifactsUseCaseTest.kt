@@ -1,7 +1,241 @@
 package me.scana.okgradle.data
 
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.ArtifactRepository
+import me.scana.okgradle.data.repository.SearchResult
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
 class SearchArtifactsUseCaseTest {
 
+    @Test
+    fun `keeps repository order when a later repository answers first`() {
+        val repositories = mapOf(
+                "Slow" to DelayedArtifactRepository(Artifact("me.scana", "slow", "1.0.0"), 200),
+                "Fast" to DelayedArtifactRepository(Artifact("me.scana", "fast", "1.0.0"), 0)
+        )
+        val useCase = SearchArtifactsUseCase(repositories, scheduler = Schedulers.io())
+
+        val results = useCase.search("scana").toList().blockingGet()
+
+        assertEquals(2, results.size)
+        val first = results[0] as SearchResult.Success
+        assertEquals(listOf("fast"), first.artifacts.map { it.name })
+        val last = results[1] as SearchResult.Success
+        assertEquals(listOf("slow", "fast"), last.artifacts.map { it.name })
+    }
+
+    @Test
+    fun `reports failing repository without dropping the others`() {
+        val repositories = mapOf(
+                "Broken" to object : ArtifactRepository {
+                    override fun search(query: String): Single<SearchResult> = Single.error(IOException("offline"))
+                },
+                "Working" to DelayedArtifactRepository(Artifact("me.scana", "sdk", "1.0.0"), 0)
+        )
+        val useCase = SearchArtifactsUseCase(repositories, scheduler = Schedulers.trampoline())
+
+        val results = useCase.search("scana").toList().blockingGet()
+
+        val error = results.filterIsInstance<SearchResult.Error>().single()
+        assertTrue(error.throwable.message!!.startsWith("Broken"))
+        val success = results.filterIsInstance<SearchResult.Success>().single()
+        assertEquals(listOf("sdk"), success.artifacts.map { it.name })
+    }
+
+    @Test
+    fun `reports repository that misses its deadline`() {
+        val repositories = mapOf(
+                "Stalled" to object : ArtifactRepository {
+                    override fun search(query: String): Single<SearchResult> = Single.never()
+                },
+                "Working" to DelayedArtifactRepository(Artifact("me.scana", "sdk", "1.0.0"), 0)
+        )
+        val useCase = SearchArtifactsUseCase(
+                repositories,
+                deadlinesInMillis = mapOf("Stalled" to 50L),
+                scheduler = Schedulers.trampoline()
+        )
+
+        val results = useCase.search("scana").toList().blockingGet()
+
+        val error = results.filterIsInstance<SearchResult.Error>().single()
+        assertTrue(error.throwable.message!!.startsWith("Stalled"))
+        assertEquals(1, results.filterIsInstance<SearchResult.Success>().size)
+    }
+
+    @Test
+    fun `starts deadlines once a repository is called`() {
+        val repositories = mapOf(
+                "Slow" to object : ArtifactRepository {
+                    override fun search(query: String): Single<SearchResult> = Single.fromCallable {
+                        Thread.sleep(200)
+                        SearchResult.Success(listOf(Artifact("me.scana", "slow", "1.0.0")))
+                    }
+                },
+                "Queued" to DelayedArtifactRepository(Artifact("me.scana", "queued", "1.0.0"), 0)
+        )
+        val ioExecutor = Executors.newSingleThreadExecutor()
+        val useCase = SearchArtifactsUseCase(
+                repositories,
+                deadlinesInMillis = mapOf("Queued" to 100L),
+                scheduler = Schedulers.trampoline(),
+                ioScheduler = Schedulers.from(ioExecutor)
+        )
+
+        val results = useCase.search("scana").toList().blockingGet()
+        ioExecutor.shutdown()
+
+        assertTrue(results.none { it is SearchResult.Error })
+        assertEquals(listOf("queued", "slow"), (results.last() as SearchResult.Success).artifacts.map { it.name }.sorted())
+    }
+
+    @Test
+    fun `answers repeated and refined queries from cache`() {
+        val repository = CountingArtifactRepository(
+                Artifact("me.scana", "retrofit", "1.0.0"),
+                Artifact("me.scana", "retrolambda", "1.0.0")
+        )
+        val useCase = SearchArtifactsUseCase(mapOf("Counting" to repository), scheduler = Schedulers.trampoline())
+
+        useCase.search("retro").blockingLast()
+        useCase.search(" retro ").blockingLast()
+        val refined = useCase.search("retrof").blockingLast() as SearchResult.Success
+
+        assertEquals(1, repository.searchCount)
+        assertEquals(listOf("retrofit"), refined.artifacts.map { it.name })
+        assertEquals(2, useCase.cache.hitCount)
+        assertEquals(1, useCase.cache.missCount)
+    }
+
+    @Test
+    fun `skips repositories that need a longer query`() {
+        val repositories = mapOf(
+                "Picky" to object : ArtifactRepository {
+                    override val minQueryLength = 3
+                    override fun search(query: String): Single<SearchResult> = Single.error(IllegalStateException())
+                },
+                "Working" to DelayedArtifactRepository(Artifact("me.scana", "sdk", "1.0.0"), 0)
+        )
+        val useCase = SearchArtifactsUseCase(repositories, scheduler = Schedulers.trampoline())
+
+        val results = useCase.search("sc").toList().blockingGet()
+
+        val success = results.single() as SearchResult.Success
+        assertEquals(listOf("sdk"), success.artifacts.map { it.name })
+    }
+
+    @Test
+    fun `asks remote repositories only after the remote delay`() {
+        val scheduler = TestScheduler()
+        val remote = CountingArtifactRepository(Artifact("me.scana", "remote", "1.0.0"))
+        val local = object : ArtifactRepository {
+            override fun search(query: String): Single<SearchResult> =
+                    Single.just(SearchResult.Success(listOf(Artifact("me.scana", "relocal", "1.0.0"))))
+
+            override fun answersLocally(query: String) = true
+        }
+        val useCase = SearchArtifactsUseCase(mapOf("Local" to local, "Remote" to remote), scheduler = scheduler)
+
+        val observer = useCase.search("re", remoteDelayInMillis = 300).test()
+        scheduler.triggerActions()
+
+        assertEquals(0, remote.searchCount)
+        observer.assertValueCount(1)
+
+        scheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS)
+
+        assertEquals(1, remote.searchCount)
+        val last = observer.values().last() as SearchResult.Success
+        assertEquals(listOf("relocal", "remote"), last.artifacts.map { it.name })
+    }
+
+    @Test
+    fun `asks repositories that do not cache results every time`() {
+        val repository = object : ArtifactRepository {
+            var searchCount = 0
+
+            override val cachesResults = false
+
+            override fun search(query: String): Single<SearchResult> = Single.fromCallable {
+                searchCount++
+                SearchResult.Success(listOf(Artifact("me.scana", "sdk", "1.0.$searchCount")))
+            }
+        }
+        val useCase = SearchArtifactsUseCase(mapOf("Volatile" to repository), scheduler = Schedulers.trampoline())
+
+        useCase.search("sdk").blockingLast()
+        val last = useCase.search("sdk").blockingLast() as SearchResult.Success
+
+        assertEquals(listOf("1.0.2"), last.artifacts.map { it.version })
+        assertEquals(0, useCase.cache.hitCount)
+    }
+
+    @Test
+    fun `looks for spelling suggestions on the search scheduler`() {
+        val scheduler = TestScheduler()
+        val useCase = SearchArtifactsUseCase(emptyMap(), scheduler = scheduler)
+        useCase.suggester.addAll(listOf(Artifact("com.squareup.retrofit2", "retrofit", "2.6.2")))
+
+        val observer = useCase.search("retrofti").test()
+
+        observer.assertNoValues()
+
+        scheduler.triggerActions()
+
+        observer.assertValueCount(1)
+        assertEquals("retrofit", (observer.values().single() as SearchResult.Success).suggestion)
+    }
+
+    @Test
+    fun `keeps versions of repositories that show the versions the project uses`() {
+        val latestVersions = LatestVersions()
+        latestVersions.put(Artifact("com.squareup.okhttp3", "okhttp", "3.14.2"), "4.2.0")
+        latestVersions.put(Artifact("com.squareup.retrofit2", "retrofit", "2.5.0"), "2.6.2")
+        val repositories = mapOf(
+                "Project" to object : ArtifactRepository {
+                    override val showsUsedVersions = true
+
+                    override fun search(query: String): Single<SearchResult> =
+                            Single.just(SearchResult.Success(listOf(Artifact("com.squareup.okhttp3", "okhttp", "3.14.2"))))
+                },
+                "Remote" to DelayedArtifactRepository(Artifact("com.squareup.retrofit2", "retrofit", "2.5.0"), 0)
+        )
+        val useCase = SearchArtifactsUseCase(repositories, latestVersions = latestVersions, scheduler = Schedulers.trampoline())
+
+        val last = useCase.search("squareup").blockingLast() as SearchResult.Success
+
+        assertEquals(
+                listOf("com.squareup.okhttp3:okhttp:3.14.2", "com.squareup.retrofit2:retrofit:2.6.2"),
+                last.artifacts.map { it.toString() }.sorted()
+        )
+    }
+
+    class CountingArtifactRepository(private vararg val artifacts: Artifact) : ArtifactRepository {
+        var searchCount = 0
+
+        override fun search(query: String): Single<SearchResult> = Single.fromCallable {
+            searchCount++
+            SearchResult.Success(artifacts.filter { it.name.contains(query) })
+        }
+
+        override fun refine(result: SearchResult.Success, query: String) =
+                SearchResult.Success(result.artifacts.filter { it.name.contains(query) })
+    }
+
+    class DelayedArtifactRepository(private val artifact: Artifact, private val delayInMillis: Long) : ArtifactRepository {
+        override fun search(query: String): Single<SearchResult> =
+                Single.just<SearchResult>(SearchResult.Success(listOf(artifact)))
+                        .delay(delayInMillis, TimeUnit.MILLISECONDS, Schedulers.trampoline())
+    }
+
   /*  @Test
     fun `returns first artifact is available`() {
         val repositories = listOf(
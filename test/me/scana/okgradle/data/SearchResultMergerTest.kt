@@ -0,0 +1,59 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.SearchResult
+import org.junit.Test
+import kotlin.test.assertEquals
+
+class SearchResultMergerTest {
+
+    @Test
+    fun `keeps the highest version of artifacts found by several repositories`() {
+        val merger = SearchResultMerger("okhttp")
+
+        merger.add(0, SearchResult.Success(listOf(Artifact("com.squareup.okhttp3", "okhttp", "3.14.2"))))
+        val merged = merger.add(1, SearchResult.Success(listOf(
+                Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"),
+                Artifact("com.squareup.okhttp3", "okhttp", "4.0.0-RC1")
+        )))
+
+        assertEquals(listOf("com.squareup.okhttp3:okhttp:4.2.0"), merged.map { it.toString() })
+    }
+
+    @Test
+    fun `ranks better matches first regardless of repository order`() {
+        val merger = SearchResultMerger("retrofit")
+
+        merger.add(0, SearchResult.Success(listOf(Artifact("com.squareup.retrofit2", "converter-gson", "2.6.2"))))
+        merger.add(1, SearchResult.Success(listOf(Artifact("com.squareup.retrofit2", "retrofit-mock", "2.6.2"))))
+        val merged = merger.add(2, SearchResult.Success(listOf(Artifact("com.squareup.retrofit2", "retrofit", "2.6.2"))))
+
+        assertEquals(listOf("retrofit", "retrofit-mock", "converter-gson"), merged.map { it.name })
+    }
+
+    @Test
+    fun `prefers artifacts found by more repositories and released recently`() {
+        val now = 1_000_000_000_000L
+        val merger = SearchResultMerger("rx", clock = { now })
+        val old = Artifact("io.reactivex", "rxjava", "1.3.8")
+        val fresh = Artifact("io.reactivex.rxjava2", "rxjava", "2.2.12")
+        val shared = Artifact("io.reactivex.rxjava2", "rxandroid", "2.1.1")
+
+        merger.add(0, SearchResult.Success(listOf(old, fresh), releasedAt = mapOf(old to now - 5 * 365L * 24 * 60 * 60 * 1000, fresh to now)))
+        val merged = merger.add(1, SearchResult.Success(listOf(shared)))
+        val last = merger.add(2, SearchResult.Success(listOf(shared)))
+
+        assertEquals(listOf(fresh, old, shared), merged)
+        assertEquals(listOf(shared, fresh, old), last)
+    }
+
+    @Test
+    fun `ranks artifacts used before above equally good matches`() {
+        val used = Artifact("com.squareup.okhttp3", "logging-interceptor", "4.2.0")
+        val merger = SearchResultMerger("squareup", usageWeight = { if (it == used) 3.0 else 0.0 })
+
+        val merged = merger.add(0, SearchResult.Success(listOf(Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"), used)))
+
+        assertEquals(listOf("logging-interceptor", "okhttp"), merged.map { it.name })
+    }
+}
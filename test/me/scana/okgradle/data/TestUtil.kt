@@ -7,13 +7,29 @@ import okhttp3.ResponseBody.Companion.toResponseBody
 class TestInterceptor : Interceptor {
 
     var recentRequest: Request? = null
+    var requestCount = 0
     private var response: Response = buildResponse("".toResponseBody("text/plain".toMediaType()))
+    private val responsesByPath = mutableMapOf<String, String>()
+    private var answer: ((Interceptor.Chain) -> Response)? = null
 
     override fun intercept(chain: Interceptor.Chain): Response {
         recentRequest = chain.request()
+        requestCount++
+        answer?.let { return it(chain) }
+        responsesByPath[chain.request().url.encodedPath]?.let {
+            return buildResponse(it.toResponseBody("text/xml".toMediaType()))
+        }
         return response
     }
 
+    fun returnsXml(path: String, xml: String) {
+        responsesByPath[path] = xml
+    }
+
+    fun answers(answer: (Interceptor.Chain) -> Response) {
+        this.answer = answer
+    }
+
     fun returnsJson(json: String) {
         val body = json.toResponseBody("application/json".toMediaType())
         response = buildResponse(body)
@@ -41,8 +57,21 @@ class MockOkHttpClient {
         testInterceptor.returnsJson(json)
     }
 
+    fun returnsXml(path: String, xml: String) {
+        testInterceptor.returnsXml(path, xml)
+    }
+
+    /**
+     * Answers every call with [answer], which runs on the thread of the call and may block it.
+     */
+    fun answers(answer: (Interceptor.Chain) -> Response) {
+        testInterceptor.answers(answer)
+    }
+
     fun instance() = okHttpClient
 
     fun recentRequest(): Request? = testInterceptor.recentRequest
 
+    fun requestCount(): Int = testInterceptor.requestCount
+
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package me.scana.okgradle.data
+
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import me.scana.okgradle.data.repository.Artifact
+import org.junit.Test
+import java.io.File
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class UsageStatisticsTest {
+
+    val file = File(createTempDir("usage-statistics"), "usage.log")
+
+    var now = 1_000_000L
+
+    private fun statistics() = UsageStatistics(file, halfLifeInMillis = 1000, scheduler = Schedulers.trampoline(), clock = { now })
+
+    @Test
+    fun `weighs uses of any version and lets them decay`() {
+        val statistics = statistics()
+
+        statistics.record(Artifact("com.squareup.okhttp3", "okhttp", "3.14.2"))
+        statistics.record(Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"))
+
+        assertEquals(2.0, statistics.weight(Artifact("com.squareup.okhttp3", "okhttp", "+")))
+        now += 1000
+        assertEquals(1.0, statistics.weight(Artifact("com.squareup.okhttp3", "okhttp", "+")))
+        assertEquals(0.0, statistics.weight(Artifact("com.squareup.retrofit2", "retrofit", "+")))
+    }
+
+    @Test
+    fun `finds most used artifacts in their last version after a restart`() {
+        statistics().apply {
+            record(Artifact("io.reactivex.rxjava2", "rxjava", "2.2.11"))
+            record(Artifact("io.reactivex.rxjava2", "rxandroid", "2.1.1"))
+            record(Artifact("io.reactivex.rxjava2", "rxjava", "2.2.12"))
+        }
+
+        val found = statistics().find("rx", 10)
+
+        assertEquals(listOf("io.reactivex.rxjava2:rxjava:2.2.12", "io.reactivex.rxjava2:rxandroid:2.1.1"), found.map { it.toString() })
+    }
+
+    @Test
+    fun `compacts the log without losing weights`() {
+        val statistics = statistics()
+
+        repeat(300) { statistics.record(Artifact("com.google.dagger", "dagger", "2.24")) }
+
+        assertTrue(file.readLines().size < 100)
+        assertEquals(300.0, statistics().weight(Artifact("com.google.dagger", "dagger", "2.24")), 0.001)
+    }
+
+    @Test
+    fun `logs uses on the scheduler at the time they were recorded`() {
+        val scheduler = TestScheduler()
+        val statistics = UsageStatistics(file, halfLifeInMillis = 1000, scheduler = scheduler, clock = { now })
+
+        statistics.record(Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"))
+        now += 1000
+
+        assertFalse(file.exists())
+
+        scheduler.triggerActions()
+
+        assertEquals(0.5, statistics.weight(Artifact("com.squareup.okhttp3", "okhttp", "+")))
+        assertEquals(1, file.readLines().size)
+    }
+}
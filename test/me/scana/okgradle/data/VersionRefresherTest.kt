@@ -0,0 +1,71 @@
+package me.scana.okgradle.data
+
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.HostRateLimiter
+import me.scana.okgradle.data.repository.NetworkClient
+import me.scana.okgradle.data.repository.SearchResult
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import org.junit.Test
+import kotlin.test.assertEquals
+
+class VersionRefresherTest {
+
+    val mockOkHttpClient = MockOkHttpClient()
+
+    val networkClient = NetworkClient(mockOkHttpClient.instance())
+
+    val latestVersions = LatestVersions()
+
+    var now = 0L
+
+    val sleeps = mutableListOf<Long>()
+
+    val rateLimiter = HostRateLimiter(1000, clock = { now }, sleep = { sleeps.add(it) })
+
+    val okhttp = Artifact("com.squareup.okhttp3", "okhttp", "3.14.2")
+
+    val dagger = Artifact("com.google.dagger", "dagger", "2.23")
+
+    private fun refresher(isPaused: () -> Boolean = { false }) = VersionRefresher(
+            networkClient,
+            listOf(
+                    VersionRefresher.Source("https://central.example.com/maven2/".toHttpUrl()),
+                    VersionRefresher.Source("https://jcenter.example.com/jcenter/".toHttpUrl())
+            ),
+            { listOf(okhttp, dagger).take(it) },
+            latestVersions,
+            isPaused = isPaused,
+            rateLimiter = rateLimiter
+    )
+
+    @Test
+    fun `finds latest versions in the first source that knows them`() {
+        mockOkHttpClient.returnsXml("/maven2/com/squareup/okhttp3/okhttp/maven-metadata.xml", metadata("4.2.0"))
+        mockOkHttpClient.returnsXml("/jcenter/com/google/dagger/dagger/maven-metadata.xml", metadata("2.24"))
+
+        refresher().refresh()
+
+        assertEquals("4.2.0", latestVersions[okhttp])
+        assertEquals("2.24", latestVersions[dagger])
+        assertEquals(listOf(1000L), sleeps)
+        val upgraded = latestVersions.upgrade(SearchResult.Success(listOf(okhttp, Artifact("com.google.dagger", "dagger", "2.25"))))
+        assertEquals(listOf("4.2.0", "2.25"), upgraded.artifacts.map { it.version })
+    }
+
+    @Test
+    fun `stops while paused`() {
+        mockOkHttpClient.returnsXml("/maven2/com/squareup/okhttp3/okhttp/maven-metadata.xml", metadata("4.2.0"))
+
+        refresher(isPaused = { true }).refresh()
+
+        assertEquals(null, latestVersions[okhttp])
+    }
+
+    private fun metadata(release: String) = """<?xml version="1.0" encoding="UTF-8"?>
+        <metadata>
+          <versioning>
+            <release>$release</release>
+          </versioning>
+        </metadata>
+        """.trimIndent()
+}
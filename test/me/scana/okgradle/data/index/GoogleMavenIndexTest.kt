@@ -0,0 +1,85 @@
+package me.scana.okgradle.data.index
+
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.MockOkHttpClient
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.NetworkClient
+import org.junit.Test
+import java.io.File
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class GoogleMavenIndexTest {
+
+    val mockOkHttpClient = MockOkHttpClient()
+
+    val networkClient = NetworkClient(mockOkHttpClient.instance())
+
+    val indexFile: File = File.createTempFile("google-maven-index", ".bin").also {
+        it.delete()
+        it.deleteOnExit()
+    }
+
+    init {
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/master-index.xml",
+                """<?xml version='1.0' encoding='UTF-8'?>
+                <metadata>
+                  <androidx.appcompat/>
+                  <androidx.recyclerview/>
+                </metadata>
+                """.trimIndent()
+        )
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/androidx/appcompat/group-index.xml",
+                """<?xml version='1.0' encoding='UTF-8'?>
+                <androidx.appcompat>
+                  <appcompat versions="1.0.0,1.0.2,1.1.0"/>
+                  <appcompat-resources versions="1.1.0-alpha01,1.1.0"/>
+                </androidx.appcompat>
+                """.trimIndent()
+        )
+        mockOkHttpClient.returnsXml(
+                "/dl/android/maven2/androidx/recyclerview/group-index.xml",
+                """<?xml version='1.0' encoding='UTF-8'?>
+                <androidx.recyclerview>
+                  <recyclerview versions="1.0.0,1.1.0-beta05"/>
+                </androidx.recyclerview>
+                """.trimIndent()
+        )
+    }
+
+    @Test
+    fun `returns no result before the first refresh`() {
+        val index = GoogleMavenIndex(networkClient, indexFile, scheduler = Schedulers.trampoline())
+
+        assertNull(index.search("appcompat", 10))
+    }
+
+    @Test
+    fun `finds latest version of every matching artifact`() {
+        val index = GoogleMavenIndex(networkClient, indexFile, scheduler = Schedulers.trampoline())
+        index.refresh()
+
+        assertEquals(
+                listOf(
+                        Artifact("androidx.appcompat", "appcompat", "1.1.0"),
+                        Artifact("androidx.appcompat", "appcompat-resources", "1.1.0")
+                ),
+                index.search("appcompat", 10)
+        )
+        assertEquals(
+                listOf(Artifact("androidx.recyclerview", "recyclerview", "1.1.0-beta05")),
+                index.search("androidx recycler", 10)
+        )
+    }
+
+    @Test
+    fun `loads stored index from disk`() {
+        GoogleMavenIndex(networkClient, indexFile, scheduler = Schedulers.trampoline()).refresh()
+
+        val index = GoogleMavenIndex(networkClient, indexFile, scheduler = Schedulers.trampoline())
+
+        assertEquals(3, index.search("androidx", 10)?.size)
+    }
+}
@@ -0,0 +1,140 @@
+package me.scana.okgradle.data.index
+
+import io.reactivex.schedulers.Schedulers
+import me.scana.okgradle.data.MockOkHttpClient
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.NetworkClient
+import org.junit.Test
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.util.zip.GZIPOutputStream
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class MavenCentralIndexTest {
+
+    val networkClient = NetworkClient(MockOkHttpClient().instance())
+
+    val directory: File = createTempDir("maven-central-index")
+
+    val indexFile = File(directory, "index.bin")
+
+    @Test
+    fun `returns no result before the first refresh`() {
+        val dump = File(directory, "central.txt").apply { writeText("com.squareup.retrofit2:retrofit:2.6.2\n") }
+        val index = MavenCentralIndex(networkClient, dump.path, indexFile, scheduler = Schedulers.trampoline())
+
+        assertNull(index.search("retrofit", 10))
+    }
+
+    @Test
+    fun `ranks exact and prefix matches of a dump first`() {
+        val dump = File(directory, "central.txt").apply {
+            writeText("""
+                # groupId:artifactId:version
+                com.squareup.retrofit2:adapter-rxjava2:2.6.2
+                com.squareup.retrofit2:retrofit:2.6.1
+                com.squareup.retrofit2:retrofit:2.6.2
+                com.squareup.retrofit2:retrofit-mock:2.6.2
+                com.squareup.okhttp3:okhttp:4.2.0
+            """.trimIndent())
+        }
+        val index = MavenCentralIndex(networkClient, dump.path, indexFile, scheduler = Schedulers.trampoline())
+        index.refresh()
+
+        assertEquals(
+                listOf(
+                        Artifact("com.squareup.retrofit2", "retrofit", "2.6.2"),
+                        Artifact("com.squareup.retrofit2", "retrofit-mock", "2.6.2"),
+                        Artifact("com.squareup.retrofit2", "adapter-rxjava2", "2.6.2")
+                ),
+                index.search("retrofit", 10)
+        )
+        assertEquals(
+                listOf(Artifact("com.squareup.okhttp3", "okhttp", "4.2.0")),
+                index.search("squareup okh", 10)
+        )
+    }
+
+    @Test
+    fun `applies incremental chunks of a maven indexer directory`() {
+        writeChunk(NexusIndexReader.FULL_INDEX_FILE, added = listOf("junit|junit|4.11|NA|jar", "junit|junit|4.11|sources|jar"))
+        writeProperties(lastIncremental = 1)
+        val index = MavenCentralIndex(networkClient, directory.path, indexFile, scheduler = Schedulers.trampoline())
+        index.refresh()
+
+        File(directory, NexusIndexReader.FULL_INDEX_FILE).delete()
+        writeChunk(NexusIndexReader.incrementalFile(2), added = listOf("junit|junit|4.12|NA|jar", "org.hamcrest|hamcrest|2.1|NA|jar"))
+        writeChunk(NexusIndexReader.incrementalFile(3), deleted = listOf("org.hamcrest|hamcrest|2.1|NA|jar"))
+        writeProperties(lastIncremental = 3)
+        index.refresh()
+
+        assertEquals(listOf(Artifact("junit", "junit", "4.12")), index.search("junit", 10))
+        assertEquals(emptyList(), index.search("hamcrest", 10))
+    }
+
+    @Test
+    fun `merges incremental chunks with the stored artifacts in order`() {
+        writeChunk(NexusIndexReader.FULL_INDEX_FILE, added = listOf("a.group|alpha|1.0|NA|jar", "c.group|charlie|1.0|NA|jar", "e.group|echo|1.0|NA|jar"))
+        writeProperties(lastIncremental = 1)
+        val index = MavenCentralIndex(networkClient, directory.path, indexFile, scheduler = Schedulers.trampoline())
+        index.refresh()
+
+        File(directory, NexusIndexReader.FULL_INDEX_FILE).delete()
+        writeChunk(
+                NexusIndexReader.incrementalFile(2),
+                added = listOf("f.group|foxtrot|1.0|NA|jar", "c.group|charlie|2.0|NA|jar", "c.group|charlie|1.5|NA|jar", "b.group|bravo|1.0|NA|jar"),
+                deleted = listOf("e.group|echo|1.0|NA|jar")
+        )
+        writeProperties(lastIncremental = 2)
+        index.refresh()
+
+        assertEquals(
+                listOf(
+                        Artifact("a.group", "alpha", "1.0"),
+                        Artifact("b.group", "bravo", "1.0"),
+                        Artifact("c.group", "charlie", "2.0"),
+                        Artifact("f.group", "foxtrot", "1.0")
+                ),
+                index.search("group", 10)
+        )
+    }
+
+    @Test
+    fun `loads stored index from disk`() {
+        val dump = File(directory, "central.txt").apply { writeText("com.squareup.okhttp3:okhttp:4.2.0\n") }
+        MavenCentralIndex(networkClient, dump.path, indexFile, scheduler = Schedulers.trampoline()).refresh()
+
+        val index = MavenCentralIndex(networkClient, dump.path, indexFile, scheduler = Schedulers.trampoline())
+
+        assertEquals(listOf(Artifact("com.squareup.okhttp3", "okhttp", "4.2.0")), index.search("okhttp", 10))
+    }
+
+    private fun writeProperties(lastIncremental: Int) {
+        File(directory, NexusIndexReader.PROPERTIES_FILE).writeText("""
+            nexus.index.chain-id=1
+            nexus.index.last-incremental=$lastIncremental
+            nexus.index.incremental-0=$lastIncremental
+            nexus.index.incremental-1=${lastIncremental - 1}
+        """.trimIndent())
+    }
+
+    private fun writeChunk(name: String, added: List<String> = emptyList(), deleted: List<String> = emptyList()) {
+        DataOutputStream(GZIPOutputStream(FileOutputStream(File(directory, name)))).use { output ->
+            output.writeByte(1)
+            output.writeLong(System.currentTimeMillis())
+            added.forEach { output.writeDocument("u", it) }
+            deleted.forEach { output.writeDocument("del", it) }
+        }
+    }
+
+    private fun DataOutputStream.writeDocument(field: String, value: String) {
+        writeInt(1)
+        writeByte(0)
+        writeUTF(field)
+        val bytes = value.toByteArray()
+        writeInt(bytes.size)
+        write(bytes)
+    }
+}
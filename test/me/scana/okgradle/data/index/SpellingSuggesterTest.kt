@@ -0,0 +1,41 @@
+package me.scana.okgradle.data.index
+
+import me.scana.okgradle.data.repository.Artifact
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class SpellingSuggesterTest {
+
+    private val suggester = SpellingSuggester().apply {
+        addAll(listOf(
+                Artifact("com.squareup.retrofit2", "retrofit", "2.6.2"),
+                Artifact("com.squareup.okhttp3", "okhttp", "4.2.0"),
+                Artifact("io.reactivex.rxjava2", "rxjava", "2.2.12"),
+                Artifact("io.reactivex.rxjava2", "rxandroid", "2.1.1")
+        ))
+    }
+
+    @Test
+    fun `corrects misspelled words and keeps the rest of the query`() {
+        assertEquals("retrofit okhttp", suggester.suggest("retorfit okhtp"))
+    }
+
+    @Test
+    fun `does not suggest anything for known words and unfinished ones`() {
+        assertNull(suggester.suggest("squareup retrofit"))
+        assertNull(suggester.suggest("rxand"))
+    }
+
+    @Test
+    fun `prefers the more frequent of equally close words`() {
+        suggester.addAll(listOf(Artifact("org.example", "rxjavb", "1.0")))
+
+        assertEquals("rxjava", suggester.suggest("rxjavx"))
+    }
+
+    @Test
+    fun `does not suggest words that are too far away`() {
+        assertNull(suggester.suggest("dagger"))
+    }
+}
@@ -0,0 +1,40 @@
+package me.scana.okgradle.data.index
+
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+import kotlin.test.assertEquals
+
+class StringTableTest {
+
+    private val strings = listOf("retrofit", "okhttp", "retrofit-mock", "okio", "retrolambda", "żółw", "retrofit")
+
+    private val indices: Map<String, Int>
+
+    private val table: StringTable
+
+    init {
+        val bytes = ByteArrayOutputStream()
+        indices = DataOutputStream(bytes).use { StringTable.write(strings, it) }
+        table = StringTable.read(ByteBuffer.wrap(bytes.toByteArray()))
+    }
+
+    @Test
+    fun `stores every distinct string once`() {
+        assertEquals(6, table.size)
+        indices.forEach { (string, index) -> assertEquals(string, table[index]) }
+    }
+
+    @Test
+    fun `finds strings and prefix ranges without decoding`() {
+        assertEquals(indices["okio"], table.indexOf("okio"))
+        assertEquals(-1, table.indexOf("retro"))
+        assertEquals(
+                listOf("retrofit", "retrofit-mock"),
+                table.prefixRange("retrof").map { table[it] }
+        )
+        assertEquals(listOf("żółw"), table.prefixRange("ż").map { table[it] })
+        assertEquals(emptyList(), table.prefixRange("zzz").map { table[it] })
+    }
+}
@@ -0,0 +1,45 @@
+package me.scana.okgradle.data.index
+
+import org.junit.Test
+import kotlin.test.assertEquals
+
+class TrigramIndexTest {
+
+    private val coordinates = listOf(
+            "com.squareup.retrofit2:retrofit",
+            "com.squareup.retrofit2:adapter-rxjava2",
+            "com.squareup.okhttp3:okhttp",
+            "io.reactivex.rxjava2:rxjava",
+            "androidx.appcompat:appcompat"
+    )
+
+    private val index = TrigramIndex.build(coordinates.size) { coordinates[it] }
+
+    @Test
+    fun `finds entries containing every token`() {
+        assertEquals(listOf(0, 1), find("retrofit"))
+        assertEquals(listOf(1, 3), find("RxJava2"))
+        assertEquals(listOf(1), find("rxjava2 squareup"))
+        assertEquals(listOf(2), find("3:ok"))
+        assertEquals(emptyList(), find("retrofit okhttp"))
+    }
+
+    @Test
+    fun `finds tokens shorter than a trigram anywhere in the text`() {
+        assertEquals(listOf(2), find("tp"))
+        assertEquals(listOf(1, 3), find("a2"))
+    }
+
+    @Test
+    fun `confirms tokens whose trigrams are spread over the text`() {
+        assertEquals(emptyList(), find("compatapp"))
+    }
+
+    @Test
+    fun `finds similar entries for a query with a typo`() {
+        assertEquals(listOf(0, 1), index.findSimilar("retorfit2", 10).toList())
+        assertEquals(listOf(4), index.findSimilar("appcompta", 10).toList())
+    }
+
+    private fun find(query: String) = index.find(query) { coordinates[it] }.toList()
+}
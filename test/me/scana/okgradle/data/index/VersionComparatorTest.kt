@@ -0,0 +1,17 @@
+package me.scana.okgradle.data.index
+
+import org.junit.Test
+import kotlin.test.assertEquals
+
+class VersionComparatorTest {
+
+    @Test
+    fun `orders numeric parts and pre-release qualifiers`() {
+        val versions = listOf("1.10.0", "1.0", "1.1.0-alpha01", "1.0.1", "1.1.0", "1.1.0-rc1", "1.1.0-beta05", "1.1.0-rc2")
+
+        assertEquals(
+                listOf("1.0", "1.0.1", "1.1.0-alpha01", "1.1.0-beta05", "1.1.0-rc1", "1.1.0-rc2", "1.1.0", "1.10.0"),
+                versions.sortedWith(VersionComparator)
+        )
+    }
+}
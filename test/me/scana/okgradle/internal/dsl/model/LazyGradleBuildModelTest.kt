@@ -0,0 +1,70 @@
+package me.scana.okgradle.internal.dsl.model
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.PlatformTestCase
+import com.intellij.testFramework.VfsTestUtil
+import me.scana.okgradle.internal.dsl.api.ProjectBuildModel
+
+class LazyGradleBuildModelTest : PlatformTestCase() {
+
+    private lateinit var appBuildFile: VirtualFile
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = runWriteAction { VfsUtil.createDirectoryIfMissing(project.basePath!!)!! }
+        VfsTestUtil.createFile(baseDir, "settings.gradle", "include ':app'\n")
+        VfsTestUtil.createFile(baseDir, "build.gradle", "apply plugin: 'java'\n")
+        appBuildFile = VfsTestUtil.createFile(
+                baseDir,
+                "app/build.gradle",
+                "dependencies {\n  implementation 'com.squareup.okhttp3:okhttp:4.2.0'\n}\n"
+        )
+    }
+
+    fun testListsModulesWithoutParsingThem() {
+        val model = appModel(ProjectBuildModel.get(project))
+
+        assertFalse(model.isParsed)
+        assertEquals(":app", model.modulePath)
+        assertEquals(appBuildFile, model.virtualFile)
+        assertEquals(project, model.project)
+        assertFalse(model.isParsed)
+    }
+
+    fun testParsesModulesOnFirstUse() {
+        val model = appModel(ProjectBuildModel.get(project))
+
+        assertEquals(1, model.dependencies().artifacts().size)
+        assertTrue(model.isParsed)
+    }
+
+    fun testSkipsModulesThatWereNotParsed() {
+        val projectModel = ProjectBuildModel.get(project)
+        val model = appModel(projectModel)
+
+        assertFalse(model.isModified)
+        projectModel.applyChanges()
+        model.applyChanges()
+        model.resetState()
+
+        assertFalse(model.isParsed)
+    }
+
+    fun testAppliesChangesOfParsedModules() {
+        val projectModel = ProjectBuildModel.get(project)
+        val model = appModel(projectModel)
+
+        model.dependencies().addArtifact("implementation", "com.google.code.gson:gson:2.8.6")
+        assertTrue(model.isModified)
+        WriteCommandAction.runWriteCommandAction(project) { model.applyChanges() }
+
+        assertEquals(2, appModel(ProjectBuildModel.get(project)).dependencies().artifacts().size)
+    }
+
+    private fun appModel(projectModel: ProjectBuildModel): LazyGradleBuildModel {
+        return projectModel.allIncludedBuildModels.filterIsInstance<LazyGradleBuildModel>().single()
+    }
+}
@@ -0,0 +1,102 @@
+package me.scana.okgradle.internal.dsl.model
+
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.util.Computable
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.testFramework.PlatformTestCase
+import com.intellij.testFramework.VfsTestUtil
+import me.scana.okgradle.internal.dsl.api.GradleBuildModel
+import me.scana.okgradle.internal.dsl.api.ProjectBuildModel
+import me.scana.okgradle.internal.dsl.api.ext.GradlePropertyModel.STRING_TYPE
+import me.scana.okgradle.internal.dsl.parser.files.GradleDslFile
+import kotlin.test.assertFailsWith
+
+class ProjectBuildModelImplTest : PlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = runWriteAction { VfsUtil.createDirectoryIfMissing(project.basePath!!)!! }
+        VfsTestUtil.createFile(baseDir, "settings.gradle", "include ':lib', ':lib:core', ':app'\n")
+        VfsTestUtil.createFile(baseDir, "build.gradle", "ext.okhttpVersion = '4.2.0'\n")
+        VfsTestUtil.createFile(baseDir, "lib/build.gradle", "apply plugin: 'java'\n")
+        VfsTestUtil.createFile(
+                baseDir,
+                "lib/core/build.gradle",
+                "dependencies {\n  implementation \"com.squareup.okhttp3:okhttp:\$okhttpVersion\"\n}\n"
+        )
+        VfsTestUtil.createFile(
+                baseDir,
+                "app/build.gradle",
+                "ext.gsonVer = '2.8.6'\ndependencies {\n  implementation \"com.google.code.gson:gson:\$gsonVersion\"\n}\n"
+        )
+    }
+
+    fun testParsesAllIncludedModels() {
+        val models = ProjectBuildModel.get(project).parseAllIncludedBuildModels()
+
+        assertEquals(4, models.size)
+        assertTrue(models.filterIsInstance<LazyGradleBuildModel>().all { it.isParsed })
+    }
+
+    fun testParsesParentModulesBeforeTheirChildren() {
+        val models = ProjectBuildModel.get(project).parseAllIncludedBuildModels()
+
+        val rootFile = dslFile(models.first())
+        val libFile = dslFile(module(models, ":lib"))
+        val coreFile = dslFile(module(models, ":lib:core"))
+        assertSame(rootFile, libFile.parentModuleDslFile)
+        assertSame(libFile, coreFile.parentModuleDslFile)
+        assertTrue(libFile.childModuleDslFiles.contains(coreFile))
+    }
+
+    fun testResolvesReferencesBetweenFiles() {
+        val models = ProjectBuildModel.get(project).parseAllIncludedBuildModels()
+
+        assertEquals("4.2.0", version(module(models, ":lib:core")))
+    }
+
+    fun testLeavesReferencesToTheResolutionPass() {
+        val app = module(ProjectBuildModel.get(project).parseAllIncludedBuildModels(), ":app")
+        val dependencyManager = dslFile(app).context.dependencyManager
+
+        dependencyManager.runDeferringResolution { app.ext().findProperty("gsonVer").rename("gsonVersion") }
+        assertFalse(version(app) == "2.8.6")
+
+        dependencyManager.resolveAll()
+        assertEquals("2.8.6", version(app))
+    }
+
+    fun testDoesNotParseInsideReadActions() {
+        val projectModel = ProjectBuildModel.get(project)
+
+        ApplicationManager.getApplication().runReadAction {
+            assertFailsWith<IllegalStateException> { projectModel.parseAllIncludedBuildModels() }
+        }
+    }
+
+    fun testStopsParsingWhenTheProgressIsCancelled() {
+        val projectModel = ProjectBuildModel.get(project)
+        val indicator = EmptyProgressIndicator().apply { cancel() }
+
+        assertFailsWith<ProcessCanceledException> {
+            ProgressManager.getInstance().runProcess(Computable { projectModel.parseAllIncludedBuildModels() }, indicator)
+        }
+    }
+
+    private fun module(models: List<GradleBuildModel>, modulePath: String): LazyGradleBuildModel {
+        return models.filterIsInstance<LazyGradleBuildModel>().single { it.modulePath == modulePath }
+    }
+
+    private fun dslFile(model: GradleBuildModel): GradleDslFile {
+        val delegate = if (model is LazyGradleBuildModel) model.delegate else model
+        return (delegate as GradleFileModelImpl).dslFile
+    }
+
+    private fun version(model: GradleBuildModel): String? {
+        return model.dependencies().artifacts().single().version().getValue(STRING_TYPE)
+    }
+}
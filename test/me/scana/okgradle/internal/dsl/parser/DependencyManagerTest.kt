@@ -0,0 +1,101 @@
+package me.scana.okgradle.internal.dsl.parser
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.PlatformTestCase
+import com.intellij.testFramework.VfsTestUtil
+import me.scana.okgradle.internal.dsl.api.GradleBuildModel
+import me.scana.okgradle.internal.dsl.api.ext.GradlePropertyModel.STRING_TYPE
+import me.scana.okgradle.internal.dsl.model.GradleBuildModelImpl
+import me.scana.okgradle.internal.dsl.parser.elements.GradleDslElement
+import me.scana.okgradle.internal.dsl.parser.files.GradleDslFile
+
+class DependencyManagerTest : PlatformTestCase() {
+
+    private lateinit var baseDir: VirtualFile
+
+    override fun setUp() {
+        super.setUp()
+        baseDir = runWriteAction { VfsUtil.createDirectoryIfMissing(project.basePath!!)!! }
+    }
+
+    fun testResolvesReferencesOnceANestedMapElementIsAdded() {
+        val model = parse(
+                "ext.versions = [okhttp: '4.2.0']\n" +
+                        "dependencies {\n  implementation \"org.jetbrains.kotlin:kotlin-stdlib:\${versions['kotlin']}\"\n}\n"
+        )
+        assertFalse(version(model) == "1.3.50")
+
+        model.ext().findProperty("versions").getMapValue("kotlin").setValue("1.3.50")
+
+        assertEquals("1.3.50", version(model))
+    }
+
+    fun testRetriesReferencesToElementsNestedInTheGivenOne() {
+        val model = parse(
+                "ext.versions = [okhttp: '4.2.0']\n" +
+                        "dependencies {\n  implementation \"org.jetbrains.kotlin:kotlin-stdlib:\${versions['kotlin']}\"\n}\n"
+        )
+        val dslFile = dslFile(model)
+
+        assertEquals(1, candidates(dslFile, property(dslFile, "ext")).size)
+        assertEquals(1, candidates(dslFile, property(dslFile, "ext", "versions")).size)
+    }
+
+    fun testDoesNotRetryReferencesToOtherNames() {
+        val model = parse(
+                "ext.okhttpVersion = '4.2.0'\n" +
+                        "dependencies {\n  implementation \"com.google.code.gson:gson:\$gsonVersion\"\n}\n"
+        )
+        val dslFile = dslFile(model)
+
+        assertEmpty(candidates(dslFile, property(dslFile, "ext", "okhttpVersion")))
+    }
+
+    fun testResolvesReferencesToTheNewNameOfRenamedElements() {
+        val model = parse(
+                "ext.gsonVer = '2.8.6'\n" +
+                        "dependencies {\n  implementation \"com.google.code.gson:gson:\$gsonVersion\"\n}\n"
+        )
+        assertFalse(version(model) == "2.8.6")
+
+        model.ext().findProperty("gsonVer").rename("gsonVersion")
+
+        assertEquals("2.8.6", version(model))
+    }
+
+    fun testResolvesReferencesToSiblingsOnceTheFileIsParsed() {
+        val model = parse(
+                "ext.vars = [\n" +
+                        "  key: 'value',\n" +
+                        "  key1: ext.vars.key\n" +
+                        "]\n"
+        )
+
+        assertEquals("value", model.ext().findProperty("vars").getMapValue("key1").getValue(STRING_TYPE))
+    }
+
+    private fun parse(text: String): GradleBuildModel {
+        val file = VfsTestUtil.createFile(baseDir, "build.gradle", text)
+        return GradleBuildModelImpl.parseBuildFile(file, project, "test")
+    }
+
+    private fun dslFile(model: GradleBuildModel): GradleDslFile {
+        return (model as GradleBuildModelImpl).dslFile
+    }
+
+    private fun property(dslFile: GradleDslFile, vararg path: String): GradleDslElement {
+        return path.fold(dslFile as GradleDslElement) { element, name ->
+            element.children.single { it.name == name }
+        }
+    }
+
+    private fun candidates(dslFile: GradleDslFile, element: GradleDslElement): Set<GradleReferenceInjection> {
+        return dslFile.context.dependencyManager.getCandidates(element)
+    }
+
+    private fun version(model: GradleBuildModel): String? {
+        return model.dependencies().artifacts().single().version().getValue(STRING_TYPE)
+    }
+}
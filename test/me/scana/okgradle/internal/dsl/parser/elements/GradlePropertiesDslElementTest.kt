@@ -0,0 +1,114 @@
+package me.scana.okgradle.internal.dsl.parser.elements
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.testFramework.PlatformTestCase
+import com.intellij.testFramework.VfsTestUtil
+import me.scana.okgradle.internal.dsl.api.ext.PropertyType
+import me.scana.okgradle.internal.dsl.model.GradleBuildModelImpl
+import me.scana.okgradle.internal.dsl.parser.BuildModelContext
+import me.scana.okgradle.internal.dsl.parser.ext.ExtDslElement
+
+/**
+ * Checks the indexed lookups of [GradlePropertiesDslElement] against plain scans of its elements.
+ */
+class GradlePropertiesDslElementTest : PlatformTestCase() {
+
+    private lateinit var ext: ExtDslElement
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = runWriteAction { VfsUtil.createDirectoryIfMissing(project.basePath!!)!! }
+        val file = VfsTestUtil.createFile(baseDir, "build.gradle", """
+            ext {
+              a = 1
+              b = 2
+              a = 3
+              c = 4
+              a = 5
+              b = 6
+            }
+            """.trimIndent())
+        val buildFile = GradleBuildModelImpl.parseBuildFile(file, project, "test", BuildModelContext.create(project), false)
+        ext = buildFile.getPropertyElement(ExtDslElement.EXT_BLOCK_NAME, ExtDslElement::class.java)!!
+    }
+
+    fun testFindsParsedElements() {
+        assertEquals(6, ext.allElements.size)
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAfterRemovingOne() {
+        ext.removeProperty(ext.allElements[2])
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAfterMovingOne() {
+        ext.moveElementTo(0, ext.allElements[4])
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAfterReplacingOne() {
+        ext.replaceElement(ext.allElements[1], literal("a", 7))
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAfterRenamingOne() {
+        ext.allElements[1].rename("c")
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAfterRenamingOneTwice() {
+        val element = ext.allElements[4]
+
+        element.nameElement.rename("d")
+        assertSame(element, ext.getElement("d"))
+        element.nameElement.rename("b")
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAddedInTheMiddle() {
+        ext.addNewElementAt(2, literal("b", 8))
+
+        assertMatchesScans()
+    }
+
+    fun testFindsElementsAddedAtTheEnd() {
+        ext.setNewElement(literal("c", 9))
+
+        assertMatchesScans()
+    }
+
+    private fun literal(name: String, value: Int) = GradleDslLiteral(ext, GradleNameElement.create(name)).apply { setValue(value) }
+
+    private fun assertMatchesScans() {
+        val elements = ext.allElements
+        val notAChild = literal("a", 0)
+        for (name in elements.map { it.name }.toSet() + "missing") {
+            val named = elements.filter { it.name == name }
+            assertSame(named.lastOrNull(), ext.getElement(name))
+            assertEquals(named.filter { it.elementType != PropertyType.VARIABLE }, ext.getPropertyElementsByName(name))
+            for (child in elements + notAChild) {
+                for (includeSelf in listOf(true, false)) {
+                    assertSame("$name before ${child.name} at ${elements.indexOf(child)}, includeSelf = $includeSelf",
+                               elementBefore(elements, child, name, includeSelf), ext.getElementBefore(child, name, includeSelf))
+                }
+            }
+        }
+    }
+
+    private fun elementBefore(elements: List<GradleDslElement>, child: GradleDslElement, name: String, includeSelf: Boolean): GradleDslElement? {
+        val index = elements.indexOfFirst { it === child }
+        val candidates = when {
+            index < 0 -> elements
+            includeSelf -> elements.subList(0, index + 1)
+            else -> elements.subList(0, index)
+        }
+        return candidates.lastOrNull { it.name == name }
+    }
+}
@@ -0,0 +1,119 @@
+package me.scana.okgradle.internal.dsl.parser.files
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiManager
+import com.intellij.testFramework.PlatformTestCase
+import com.intellij.testFramework.VfsTestUtil
+import me.scana.okgradle.internal.dsl.api.ProjectBuildModel
+import me.scana.okgradle.internal.dsl.model.GradleFileModelImpl
+import org.jetbrains.plugins.groovy.lang.psi.GroovyPsiElementFactory
+import kotlin.test.assertFailsWith
+
+class GradleDslFileCacheTest : PlatformTestCase() {
+
+    private lateinit var buildFile: VirtualFile
+
+    override fun setUp() {
+        super.setUp()
+        val baseDir = runWriteAction { VfsUtil.createDirectoryIfMissing(project.basePath!!)!! }
+        buildFile = VfsTestUtil.createFile(baseDir, "build.gradle", "apply plugin: 'java'\n")
+    }
+
+    fun testKeepsParsedFilesUntilTheyChange() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+
+        assertSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testReadingModelsDoesNotMakeFilesStale() {
+        val model = ProjectBuildModel.getForReading(project)
+        val rootFile = rootFile(model)
+
+        // adds an empty dependencies block to the file
+        model.projectBuildModel!!.dependencies()
+        model.resetState()
+
+        assertSame(rootFile, rootFile(ProjectBuildModel.getForReading(project)))
+    }
+
+    fun testReadingModelsDoNotShareFilesWithOtherModels() {
+        assertNotSame(rootFile(ProjectBuildModel.get(project)), rootFile(ProjectBuildModel.getForReading(project)))
+    }
+
+    fun testParsesFilesAgainAfterUnsavedChanges() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+        val document = FileDocumentManager.getInstance().getDocument(buildFile)!!
+
+        WriteCommandAction.runWriteCommandAction(project) { document.insertString(0, "// edited\n") }
+
+        assertNotSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testParsesFilesAgainAfterTheyChangeOnDisk() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+
+        runWriteAction { VfsUtil.saveText(buildFile, "dependencies {\n  implementation 'com.squareup.okhttp3:okhttp:4.2.0'\n}\n") }
+
+        val model = ProjectBuildModel.get(project)
+        assertNotSame(rootFile, rootFile(model))
+        assertEquals(1, model.projectBuildModel!!.dependencies().artifacts().size)
+    }
+
+    fun testParsesFilesAgainAfterPsiChanges() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+        val psiFile = PsiManager.getInstance(project).findFile(buildFile)!!
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            psiFile.add(GroovyPsiElementFactory.getInstance(project).createStatementFromText("apply plugin: 'application'"))
+        }
+
+        assertNotSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testKeepsFilesWhenOtherPropertiesFilesAreCreated() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+
+        VfsTestUtil.createFile(buildFile.parent, "src/main/resources/app.properties", "name=app\n")
+
+        assertSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testKeepsFilesWhenGradleFilesOfOtherProjectsAreCreated() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+        val otherProjectDir = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(createTempDirectory())!!
+
+        VfsTestUtil.createFile(otherProjectDir, "build.gradle", "apply plugin: 'java'\n")
+
+        assertSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testParsesFilesAgainWhenGradleFilesAreCreated() {
+        val rootFile = rootFile(ProjectBuildModel.get(project))
+
+        VfsTestUtil.createFile(buildFile.parent, "gradle.properties", "okhttpVersion=4.2.0\n")
+
+        assertNotSame(rootFile, rootFile(ProjectBuildModel.get(project)))
+    }
+
+    fun testOnlyTheLatestModelMayBeUsed() {
+        val model = ProjectBuildModel.get(project)
+        ProjectBuildModel.get(project)
+
+        assertFailsWith<IllegalStateException> { model.projectBuildModel }
+        assertFailsWith<IllegalStateException> { model.applyChanges() }
+    }
+
+    fun testReadingModelsDoNotReplaceOtherModels() {
+        val model = ProjectBuildModel.get(project)
+        ProjectBuildModel.getForReading(project)
+
+        assertNotNull(model.projectBuildModel)
+    }
+
+    private fun rootFile(model: ProjectBuildModel) = (model.projectBuildModel as GradleFileModelImpl).dslFile
+}
@@ -0,0 +1,141 @@
+package me.scana.okgradle.util
+
+import me.scana.okgradle.data.SearchResultMerger
+import me.scana.okgradle.data.repository.Artifact
+import me.scana.okgradle.data.repository.SearchResult
+import org.junit.Test
+import javax.swing.event.ListDataEvent
+import javax.swing.event.ListDataListener
+import kotlin.test.assertEquals
+
+class ArtifactListModelTest {
+
+    val flushes = mutableListOf<Runnable>()
+    val model = ArtifactListModel { flushes.add(it) }
+    val events = mutableListOf<String>()
+
+    init {
+        model.addListDataListener(object : ListDataListener {
+            override fun intervalAdded(e: ListDataEvent) {
+                events.add("added ${e.index0}-${e.index1}")
+            }
+
+            override fun intervalRemoved(e: ListDataEvent) {
+                events.add("removed ${e.index0}-${e.index1}")
+            }
+
+            override fun contentsChanged(e: ListDataEvent) {
+                events.add("changed ${e.index0}-${e.index1}")
+            }
+        })
+    }
+
+    @Test
+    fun `coalesces additions until flushed`() {
+        model.addAll(listOf(artifact("a"), artifact("b")))
+        model.add(artifact("a"))
+        model.add(artifact("c"))
+
+        assertEquals(0, model.size)
+        flush()
+
+        assertEquals(listOf("a", "b", "c"), names())
+        assertEquals(listOf("added 0-2"), events)
+    }
+
+    @Test
+    fun `inserts new snapshot elements around displayed ones`() {
+        model.replaceAll(listOf(artifact("fast")))
+        flush()
+        events.clear()
+
+        model.replaceAll(listOf(artifact("slow1"), artifact("slow2"), artifact("fast")))
+        flush()
+
+        assertEquals(listOf("slow1", "slow2", "fast"), names())
+        assertEquals(listOf("added 0-1"), events)
+    }
+
+    @Test
+    fun `shows every coordinate once in its latest snapshot version`() {
+        model.addAll(listOf(artifact("a"), artifact("a", "2.0.0")))
+        flush()
+        events.clear()
+
+        model.replaceAll(listOf(artifact("a", "3.0.0")))
+        flush()
+
+        assertEquals(listOf("me.scana:a:3.0.0"), (0 until model.size).map { model.getElementAt(it).toString() })
+        assertEquals(listOf("changed 0-0"), events)
+    }
+
+    @Test
+    fun `moves displayed elements the snapshot ranks differently`() {
+        model.replaceAll(listOf(artifact("a"), artifact("b"), artifact("c"), artifact("d")))
+        flush()
+        events.clear()
+
+        model.replaceAll(listOf(artifact("d"), artifact("a"), artifact("b"), artifact("c")))
+        flush()
+
+        assertEquals(listOf("d", "a", "b", "c"), names())
+        assertEquals(listOf("removed 3-3", "added 0-0"), events)
+    }
+
+    @Test
+    fun `shows results in the order the merger ranks them`() {
+        val now = 1_000_000_000_000L
+        val merger = SearchResultMerger("rx", clock = { now })
+        val old = Artifact("io.reactivex", "rxjava", "1.3.8")
+        val fresh = Artifact("io.reactivex.rxjava2", "rxjava", "2.2.12")
+        val shared = Artifact("io.reactivex.rxjava2", "rxandroid", "2.1.1")
+
+        model.replaceAll(merger.add(0, SearchResult.Success(listOf(old, fresh), releasedAt = mapOf(old to now - 5 * 365L * 24 * 60 * 60 * 1000, fresh to now))))
+        flush()
+        model.replaceAll(merger.add(1, SearchResult.Success(listOf(shared))))
+        flush()
+        assertEquals(listOf(fresh, old, shared), artifacts())
+
+        model.replaceAll(merger.add(2, SearchResult.Success(listOf(shared))))
+        flush()
+
+        assertEquals(listOf(shared, fresh, old), artifacts())
+    }
+
+    @Test
+    fun `reports insertions before the changes that follow them`() {
+        model.replaceAll(listOf(artifact("b")))
+        flush()
+        events.clear()
+
+        model.replaceAll(listOf(artifact("a"), artifact("b", "2.0.0")))
+        flush()
+
+        assertEquals(listOf("a", "b"), names())
+        assertEquals(listOf("added 0-0", "changed 1-1"), events)
+    }
+
+    @Test
+    fun `clears displayed elements`() {
+        model.add(artifact("a"))
+        flush()
+        events.clear()
+
+        model.clear()
+
+        assertEquals(0, model.size)
+        assertEquals(listOf("removed 0-0"), events)
+    }
+
+    private fun flush() {
+        val pending = flushes.toList()
+        flushes.clear()
+        pending.forEach { it.run() }
+    }
+
+    private fun artifacts() = (0 until model.size).map { model.getElementAt(it) }
+
+    private fun names() = artifacts().map { it.name }
+
+    private fun artifact(name: String, version: String = "1.0.0") = Artifact("me.scana", name, version)
+}